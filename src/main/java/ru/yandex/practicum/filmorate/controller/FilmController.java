@@ -1,11 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
@@ -15,14 +23,51 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final JsonFragments fragments;
 
     @GetMapping
-    public Collection<Film> get() {
-        return filmService.getFilms();
+    public Collection<Film> get(@RequestParam(value = "after", required = false) Long after,
+                                @RequestParam(value = "limit", required = false) Integer limit,
+                                @RequestParam(value = "compact", defaultValue = "false") boolean compact,
+                                @RequestParam(value = "releasedFrom", required = false)
+                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                @RequestParam(value = "releasedTo", required = false)
+                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                @RequestParam(value = "minDuration", required = false) Integer minDuration,
+                                @RequestParam(value = "maxDuration", required = false) Integer maxDuration) {
+        FilmFilter filter = new FilmFilter(releasedFrom, releasedTo, minDuration, maxDuration);
+        Collection<Film> films;
+        if (!filter.isEmpty()) {
+            films = filmService.getFilms(filter, after, Paging.limit(limit));
+        } else if (after == null && limit == null) {
+            films = filmService.getFilms();
+        } else {
+            films = filmService.getFilms(after, Paging.limit(limit));
+        }
+        return compact ? JsonFragments.compact(films) : films;
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(value = "after", required = false) Long after,
+                                                        @RequestParam(value = "compact", defaultValue = "false")
+                                                        boolean compact,
+                                                        @RequestParam(value = "releasedFrom", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                        LocalDate releasedFrom,
+                                                        @RequestParam(value = "releasedTo", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                        LocalDate releasedTo,
+                                                        @RequestParam(value = "minDuration", required = false)
+                                                        Integer minDuration,
+                                                        @RequestParam(value = "maxDuration", required = false)
+                                                        Integer maxDuration) {
+        FilmFilter filter = new FilmFilter(releasedFrom, releasedTo, minDuration, maxDuration);
+        return Paging.ndjson(fragments, compact, after,
+                (cursor, size) -> filmService.getFilms(filter, cursor, size), Film::getId);
     }
 
     @PostMapping
-    public Film create(@Valid @RequestBody Film film) {
+    public Film create(@RequestBody Film film) {
         return filmService.createFilms(film);
     }
 
@@ -41,9 +86,31 @@ public class FilmController {
         filmService.deleteLike(id, userId);
     }
 
+    @PostMapping("/likes")
+    public List<BatchStatus> applyLikes(@RequestBody List<LikeChange> changes) {
+        return filmService.applyLikes(changes);
+    }
+
     @GetMapping("/popular")
-    public List<Film> firstTen(@RequestParam(value = "count", required = false, defaultValue = "10") Integer count) {
-        return filmService.getTopTen(count);
+    public List<Film> firstTen(@RequestParam(value = "count", required = false, defaultValue = "10") Integer count,
+                               @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<Film> films = filmService.getTopTen(count);
+        return compact ? JsonFragments.compact(films) : films;
     }
-}
 
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam(value = "q", required = false) String query,
+                             @RequestParam(value = "limit", required = false) Integer limit,
+                             @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<Film> films = filmService.searchFilms(query, Paging.limit(limit));
+        return compact ? JsonFragments.compact(films) : films;
+    }
+
+    @GetMapping("/trending")
+    public List<Film> trending(@RequestParam(value = "window", defaultValue = "24h") String window,
+                               @RequestParam(value = "count", defaultValue = "10") Integer count,
+                               @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<Film> films = filmService.getTrending(TrendingWindow.of(window), count);
+        return compact ? JsonFragments.compact(films) : films;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination ({@code ?after=id&limit=n}) and NDJSON streaming shared by the list endpoints.
+ */
+final class Paging {
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    private static final int STREAM_PAGE_SIZE = 500;
+
+    private Paging() {
+    }
+
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    /**
+     * Writes every entity after {@code after} as one JSON line, fetching them page by page,
+     * so memory use doesn't depend on the size of the collection. {@code compact} leaves the
+     * likes and friends out.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> ndjson(JsonFragments fragments, boolean compact, Long after,
+                                                            BiFunction<Long, Integer, List<T>> pages,
+                                                            Function<T, Long> idOf) {
+        StreamingResponseBody body = out -> {
+            Long cursor = after;
+            List<T> page;
+            do {
+                page = pages.apply(cursor, STREAM_PAGE_SIZE);
+                for (T entity : page) {
+                    fragments.writeLine(entity, compact, out);
+                }
+                if (!page.isEmpty()) {
+                    cursor = idOf.apply(page.get(page.size() - 1));
+                }
+                out.flush();
+            } while (page.size() == STREAM_PAGE_SIZE);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
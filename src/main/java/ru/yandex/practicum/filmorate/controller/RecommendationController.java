@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class RecommendationController {
+    private final RecommendationService recommendationService;
+
+    @GetMapping("/users/{id}/recommendations")
+    public List<Film> recommend(@PathVariable("id") Long id,
+                                @RequestParam(value = "count", defaultValue = "10") Integer count,
+                                @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<Film> films = recommendationService.recommend(id, Paging.limit(count));
+        return compact ? JsonFragments.compact(films) : films;
+    }
+}
@@ -3,7 +3,12 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -16,10 +21,23 @@ import java.util.List;
 public class UserController {
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final JsonFragments fragments;
 
     @GetMapping
-    public Collection<User> get() {
-        return userService.get();
+    public Collection<User> get(@RequestParam(value = "after", required = false) Long after,
+                                @RequestParam(value = "limit", required = false) Integer limit,
+                                @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        Collection<User> users = after == null && limit == null
+                ? userService.get()
+                : userService.get(after, Paging.limit(limit));
+        return compact ? JsonFragments.compact(users) : users;
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(value = "after", required = false) Long after,
+                                                        @RequestParam(value = "compact", defaultValue = "false")
+                                                        boolean compact) {
+        return Paging.ndjson(fragments, compact, after, userService::get, User::getId);
     }
 
     @PostMapping
@@ -43,14 +61,31 @@ public class UserController {
         userService.deleteFriend(id, friendId);
     }
 
+    @PostMapping("/friends")
+    public List<BatchStatus> applyFriendships(@RequestBody List<FriendshipChange> changes) {
+        return userService.applyFriendships(changes);
+    }
+
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable("id") Long id) {
-        return userService.getFriendsList(id);
+    public List<User> getFriends(@PathVariable("id") Long id,
+                                 @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<User> friends = userService.getFriendsList(id);
+        return compact ? JsonFragments.compact(friends) : friends;
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable("id") Long id,
+                                           @RequestParam(value = "count", defaultValue = "10") Integer count,
+                                           @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        List<User> suggestions = userService.getFriendSuggestions(id, Paging.limit(count));
+        return compact ? JsonFragments.compact(suggestions) : suggestions;
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public List<User> getCommonFriends(@PathVariable("id") Long id, @PathVariable("otherId") Long friendId) {
+    public List<User> getCommonFriends(@PathVariable("id") Long id, @PathVariable("otherId") Long friendId,
+                                       @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
         log.info("{} + {} ", id, friendId);
-        return userService.getCommonFriends(id, friendId);
+        List<User> common = userService.getCommonFriends(id, friendId);
+        return compact ? JsonFragments.compact(common) : common;
     }
 }
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.controller.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Puts {@link JsonFragmentConverter} ahead of the Jackson converter, so film and user
+ * responses are assembled from cached fragments.
+ */
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(JsonFragmentProperties.class)
+public class JsonFragmentConfig implements WebMvcConfigurer {
+    private final ObjectMapper objectMapper;
+    private final JsonFragmentProperties properties;
+
+    @Bean
+    public JsonFragments jsonFragments() {
+        return new JsonFragments(objectMapper, properties.getMaxEntries());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new JsonFragmentConverter(objectMapper, jsonFragments()));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.controller.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Writes films, users and collections of them from {@link JsonFragments} instead of running
+ * Jackson for every response. Everything else, and all request bodies, is left to the regular
+ * Jackson converter.
+ */
+public class JsonFragmentConverter extends MappingJackson2HttpMessageConverter {
+    private final JsonFragments fragments;
+
+    public JsonFragmentConverter(ObjectMapper objectMapper, JsonFragments fragments) {
+        super(objectMapper);
+        this.fragments = fragments;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return isEntity(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (isEntity(clazz)) {
+            return true;
+        }
+        return type != null && Collection.class.isAssignableFrom(clazz)
+                && isEntity(ResolvableType.forType(type).asCollection().resolveGeneric(0));
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Collection<?> entities) {
+            fragments.writeArray(entities, outputMessage.getBody());
+        } else {
+            outputMessage.getBody().write(fragments.fragment(body, false));
+        }
+    }
+
+    private static boolean isEntity(Class<?> clazz) {
+        return clazz != null && (Film.class.isAssignableFrom(clazz) || User.class.isAssignableFrom(clazz));
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.controller.json;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.json-cache")
+public class JsonFragmentProperties {
+    /**
+     * Serialized entities kept per variant (with and without likes/friends). 0 serializes every
+     * response from scratch, which suits the jdbc storage: it returns new objects on every read.
+     */
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.controller.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Serialized JSON of films and users, cached per object. The in-memory storages publish a new
+ * object on every change and never touch it again, so the object itself is the version: the
+ * cache compares keys by identity and holds them weakly, replaced versions simply drop out.
+ * Responses are written by copying the cached bytes to the output stream one after another.
+ */
+public class JsonFragments implements MeterBinder {
+    private final ObjectWriter fullWriter;
+    private final ObjectWriter compactWriter;
+    private final Cache<Object, byte[]> full;
+    private final Cache<Object, byte[]> compact;
+
+    public JsonFragments(ObjectMapper objectMapper, int maxEntries) {
+        fullWriter = objectMapper.writer();
+        compactWriter = objectMapper.copy()
+                .addMixIn(Film.class, WithoutLikes.class)
+                .addMixIn(User.class, WithoutFriends.class)
+                .writer();
+        full = maxEntries > 0 ? newCache(maxEntries) : null;
+        compact = maxEntries > 0 ? newCache(maxEntries) : null;
+    }
+
+    /**
+     * Marks a list response to be written without the likes of its films or the friends of its users.
+     */
+    public static <T> List<T> compact(List<T> entities) {
+        return new CompactList<>(entities);
+    }
+
+    public static <T> Collection<T> compact(Collection<T> entities) {
+        return new CompactCollection<>(entities);
+    }
+
+    static boolean isCompact(Collection<?> entities) {
+        return entities instanceof Compact;
+    }
+
+    public byte[] fragment(Object entity, boolean withoutRelations) {
+        Cache<Object, byte[]> cache = withoutRelations ? compact : full;
+        ObjectWriter writer = withoutRelations ? compactWriter : fullWriter;
+        if (cache == null) {
+            return serialize(writer, entity);
+        }
+        return cache.get(entity, key -> serialize(writer, key));
+    }
+
+    public void writeArray(Collection<?> entities, OutputStream out) throws IOException {
+        boolean withoutRelations = isCompact(entities);
+        out.write('[');
+        boolean first = true;
+        for (Object entity : entities) {
+            if (!first) {
+                out.write(',');
+            }
+            out.write(fragment(entity, withoutRelations));
+            first = false;
+        }
+        out.write(']');
+    }
+
+    public void writeLine(Object entity, boolean withoutRelations, OutputStream out) throws IOException {
+        out.write(fragment(entity, withoutRelations));
+        out.write('\n');
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (full != null) {
+            CaffeineCacheMetrics.monitor(registry, full, "json.full");
+            CaffeineCacheMetrics.monitor(registry, compact, "json.compact");
+        }
+    }
+
+    private static Cache<Object, byte[]> newCache(int maxEntries) {
+        return Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object entity) {
+        try {
+            return writer.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @JsonIgnoreProperties("likes")
+    private abstract static class WithoutLikes {
+    }
+
+    @JsonIgnoreProperties("friends")
+    private abstract static class WithoutFriends {
+    }
+
+    private interface Compact {
+    }
+
+    private static final class CompactList<T> extends AbstractList<T> implements RandomAccess, Compact {
+        private final List<T> entities;
+
+        CompactList(List<T> entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        public T get(int index) {
+            return entities.get(index);
+        }
+
+        @Override
+        public int size() {
+            return entities.size();
+        }
+    }
+
+    private static final class CompactCollection<T> extends AbstractCollection<T> implements Compact {
+        private final Collection<T> entities;
+
+        CompactCollection(Collection<T> entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return entities.iterator();
+        }
+
+        @Override
+        public int size() {
+            return entities.size();
+        }
+    }
+}
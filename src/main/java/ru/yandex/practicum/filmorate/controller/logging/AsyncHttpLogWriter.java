@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands formatted exchanges to a single background thread that writes them in order.
+ * The queue is bounded: when logging can't keep up, exchanges are dropped and counted
+ * instead of slowing requests down.
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, MeterBinder, Closeable {
+    private final HttpLogWriter delegate;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+
+    public AsyncHttpLogWriter(HttpLogWriter delegate, int queueSize) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-log-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> dropped.increment());
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        executor.execute(() -> {
+            try {
+                delegate.write(precorrelation, request);
+            } catch (IOException e) {
+                log.warn("can't write http request log", e);
+            }
+        });
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        executor.execute(() -> {
+            try {
+                delegate.write(correlation, response);
+            } catch (IOException e) {
+                log.warn("can't write http response log", e);
+            }
+        });
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.http.log.dropped", dropped, LongAdder::sum)
+                .description("HTTP exchanges not logged because the log writer fell behind")
+                .register(registry);
+    }
+
+    /**
+     * Writes what is already queued, for up to a few seconds, then stops the writer thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
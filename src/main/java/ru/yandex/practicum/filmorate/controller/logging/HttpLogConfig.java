@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Makes Logbook cheap enough to leave on: only a sample of requests is logged, bodies are
+ * truncated ({@code logbook.write.max-body-size}), paths can opt out ({@code logbook.predicate.exclude})
+ * and log lines are written off the request thread.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpLogProperties.class)
+public class HttpLogConfig {
+
+    /**
+     * Replaces Logbook's default condition, which logs every request. Logbook adds the
+     * configured path includes and excludes on top of it.
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(HttpLogProperties properties) {
+        double sampleRate = properties.getSampleRate();
+        if (sampleRate >= 1) {
+            return request -> true;
+        }
+        if (sampleRate <= 0) {
+            return request -> false;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    @Bean(destroyMethod = "close")
+    public AsyncHttpLogWriter httpLogWriter(HttpLogProperties properties) {
+        return new AsyncHttpLogWriter(new DefaultHttpLogWriter(), properties.getQueueSize());
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.controller.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.http-log")
+public class HttpLogProperties {
+    /**
+     * Share of requests whose exchange is logged, from 0 to 1. Requests that are not sampled
+     * skip Logbook entirely, their bodies are never buffered.
+     */
+    private double sampleRate = 0.01;
+    /**
+     * Formatted exchanges waiting to be written; when the writer falls behind, new ones are dropped.
+     */
+    private int queueSize = 10_000;
+}
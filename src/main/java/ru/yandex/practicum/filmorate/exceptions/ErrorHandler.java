@@ -3,32 +3,77 @@ package ru.yandex.practicum.filmorate.exceptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Client errors are answered with the reason from the exception. Their messages are
+ * constants, so the response bodies are cached by message instead of built per request.
+ */
 @RestControllerAdvice
 public class ErrorHandler {
     private static final Logger log = LoggerFactory.getLogger(ErrorHandler.class);
+    private static final int MAX_CACHED_BODIES = 1_000;
+    private static final ErrorResponse INTERNAL_ERROR = new ErrorResponse("error", "Internal Server Error");
+    private static final ErrorResponse MALFORMED_REQUEST = new ErrorResponse("error", "malformed request");
+
+    private final ConcurrentMap<String, ErrorResponse> bodies = new ConcurrentHashMap<>();
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleOtherErrors(final Throwable e) {
-        log.error(e.getMessage());
-        return new ErrorResponse("error", "Internal Server Error");
+        log.error("unexpected error", e);
+        return INTERNAL_ERROR;
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(final ValidationException e) {
-        return new ErrorResponse("error", "Bad Request");
+        return body(e.getMessage());
+    }
+
+    /**
+     * Unparsable bodies and path variables of the wrong type are client errors too, and bots send
+     * plenty of them; they shouldn't be logged with a stack trace as internal errors.
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class, MethodArgumentTypeMismatchException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleMalformedRequest(final Exception e) {
+        return MALFORMED_REQUEST;
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFoundException(final NotFoundException e) {
-        return new ErrorResponse("error", "Resource Not Found");
+        return body(e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleOverloadedException(final OverloadedException e) {
+        return body(e.getMessage());
+    }
+
+    private ErrorResponse body(String reason) {
+        if (reason == null) {
+            return new ErrorResponse("error", null);
+        }
+        ErrorResponse body = bodies.get(reason);
+        if (body != null) {
+            return body;
+        }
+        body = new ErrorResponse("error", reason);
+        // a message that embeds request data would grow the cache without bound
+        if (bodies.size() < MAX_CACHED_BODIES) {
+            bodies.putIfAbsent(reason, body);
+        }
+        return body;
     }
 }
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+/**
+ * Refuses a change the server has no room to queue; the client may retry it later.
+ * Thrown in bursts, so no stack trace is captured, like {@link NotFoundException}.
+ */
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
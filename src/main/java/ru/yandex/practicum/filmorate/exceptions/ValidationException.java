@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.exceptions;
 
+/**
+ * Reports a client error, so no stack trace is captured: it would never be looked at
+ * and filling it in is most of the cost of throwing.
+ */
 public class ValidationException extends RuntimeException {
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Outcome of one item of a bulk request.
+ */
+public enum BatchStatus {
+    APPLIED,
+    UNCHANGED,
+    NOT_FOUND
+}
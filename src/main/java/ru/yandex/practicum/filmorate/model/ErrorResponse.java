@@ -1,8 +1,8 @@
 package ru.yandex.practicum.filmorate.model;
 
 public class ErrorResponse {
-    String error;
-    String description;
+    private final String error;
+    private final String description;
 
     public ErrorResponse(String error, String description) {
         this.error = error;
@@ -1,7 +1,5 @@
 package ru.yandex.practicum.filmorate.model;
 
-import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.PastOrPresent;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -21,8 +19,6 @@ public class Film {
     private Long id;
     private String name;
     private String description;
-    @NotNull(message = "Release date cannot be null")
-    @PastOrPresent
     private LocalDate releaseDate;
     private Integer duration;
     private Set<Long> likes = new HashSet<>();
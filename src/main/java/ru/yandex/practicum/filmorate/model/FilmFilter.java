@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+/**
+ * Bounds of a filtered film listing, all inclusive; a {@code null} bound is open.
+ */
+public record FilmFilter(LocalDate releasedFrom, LocalDate releasedTo, Integer minDuration, Integer maxDuration) {
+
+    public boolean byReleaseDate() {
+        return releasedFrom != null || releasedTo != null;
+    }
+
+    public boolean byDuration() {
+        return minDuration != null || maxDuration != null;
+    }
+
+    public boolean isEmpty() {
+        return !byReleaseDate() && !byDuration();
+    }
+
+    public boolean matches(Film film) {
+        if (byReleaseDate() && (film.getReleaseDate() == null
+                || releasedFrom != null && film.getReleaseDate().isBefore(releasedFrom)
+                || releasedTo != null && film.getReleaseDate().isAfter(releasedTo))) {
+            return false;
+        }
+        return !byDuration() || film.getDuration() != null
+                && (minDuration == null || film.getDuration() >= minDuration)
+                && (maxDuration == null || film.getDuration() <= maxDuration);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * One item of a bulk friendship request: a friendship to add, or to remove when {@code remove} is set.
+ */
+public record FriendshipChange(Long userId, Long friendId, boolean remove) {
+}
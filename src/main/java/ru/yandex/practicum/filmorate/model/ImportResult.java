@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many records were stored and rejected, with the first rejection reasons.
+ */
+public record ImportResult(long imported, long rejected, List<String> errors) {
+}
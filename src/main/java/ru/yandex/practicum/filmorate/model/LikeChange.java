@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * One item of a bulk like request: a like of {@code userId} to add, or to remove when {@code remove} is set.
+ */
+public record LikeChange(Long filmId, Long userId, boolean remove) {
+}
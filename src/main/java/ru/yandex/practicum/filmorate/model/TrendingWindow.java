@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+/**
+ * Periods the trending films are ranked over, named as in {@code /films/trending?window=}.
+ */
+public enum TrendingWindow {
+    HOUR("1h", 60),
+    DAY("24h", 24 * 60),
+    WEEK("7d", 7 * 24 * 60);
+
+    private final String name;
+    private final int minutes;
+
+    TrendingWindow(String name, int minutes) {
+        this.name = name;
+        this.minutes = minutes;
+    }
+
+    public static TrendingWindow of(String name) {
+        for (TrendingWindow window : values()) {
+            if (window.name.equals(name)) {
+                return window;
+            }
+        }
+        throw new ValidationException("window must be one of 1h, 24h, 7d");
+    }
+
+    public int minutes() {
+        return minutes;
+    }
+}
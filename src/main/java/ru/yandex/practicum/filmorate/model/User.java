@@ -1,8 +1,5 @@
 package ru.yandex.practicum.filmorate.model;
 
-import jakarta.validation.constraints.Email;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Past;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
@@ -16,12 +13,9 @@ import java.util.Set;
 @Data
 public class User {
     private Long id;
-    @Email
     private String email;
-    @NotBlank
     private String login;
     private String name;
-    @Past
     private LocalDate birthday;
     private Set<Long> friends = new HashSet<>();
 }
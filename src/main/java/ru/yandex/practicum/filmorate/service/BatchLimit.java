@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+/**
+ * Upper bound on the number of items in one bulk request.
+ */
+final class BatchLimit {
+    static final int MAX_ITEMS = 10_000;
+
+    private BatchLimit() {
+    }
+
+    static void check(int items) {
+        if (items > MAX_ITEMS) {
+            throw new ValidationException("a batch can contain at most " + MAX_ITEMS + " items");
+        }
+    }
+}
@@ -1,49 +1,190 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
-public class FilmService {
+public class FilmService implements MeterBinder {
+    private static final int POPULAR_CACHE_SIZE = 1_000;
+    private static final int MAX_QUERY_LENGTH = 200;
+
     private final FilmStorage storage;
     private final UserStorage userStorage;
+    private final ResultCache<Integer, Popular> popular = new ResultCache<>(POPULAR_CACHE_SIZE);
 
 
     public Collection<Film> getFilms() {
         return storage.getFilms();
     }
 
+    public List<Film> getFilms(Long after, int limit) {
+        return storage.getFilms(after, limit);
+    }
+
+    public List<Film> getFilms(FilmFilter filter, Long after, int limit) {
+        if (filter.releasedFrom() != null && filter.releasedTo() != null
+                && filter.releasedFrom().isAfter(filter.releasedTo())) {
+            throw new ValidationException("releasedFrom must not be after releasedTo");
+        }
+        if (filter.minDuration() != null && filter.maxDuration() != null
+                && filter.minDuration() > filter.maxDuration()) {
+            throw new ValidationException("minDuration must not be greater than maxDuration");
+        }
+        return storage.getFilms(filter, after, limit);
+    }
+
     public Film updateFilms(Film film) {
-        return storage.updateFilms(film);
+        Film updated = storage.updateFilms(film);
+        popular.invalidateIf((count, top) -> top.contains(updated.getId()));
+        return updated;
     }
 
     public Film createFilms(Film film) {
-        return storage.createFilms(film);
+        Film created = storage.createFilms(film);
+        likesChanged(created);
+        return created;
+    }
+
+    public void importFilms(List<Film> films) {
+        storage.importFilms(films);
+        // new films have no likes, so they can only show up in lists that aren't full yet
+        popular.invalidateIf((count, top) -> !top.full());
     }
 
     public void addLike(Long filmId, Long userId) {
         if (userStorage.findUserById(userId).isEmpty()) {
-            throw new NotFoundException("the is no user with id: " + userId);
+            throw new NotFoundException("there is no such user");
         }
         storage.addLike(filmId, userId);
+        // even with nothing cached the invalidation has to happen: a popular list being loaded
+        // right now may have read the old counts, and the invalidation stops it from being kept
+        storage.findFilmById(filmId).ifPresentOrElse(this::likesChanged, popular::invalidateAll);
     }
 
     public void deleteLike(Long filmId, Long userId) {
         if (userStorage.findUserById(userId).isEmpty()) {
-            throw new NotFoundException("the is no user with id: " + userId);
+            throw new NotFoundException("there is no such user");
         }
         storage.deleteLike(filmId, userId);
+        // losing a like can only move a film down, so lists without it stay valid
+        popular.invalidateIf((count, top) -> top.contains(filmId));
+    }
+
+    /**
+     * Applies like changes in bulk. Users are checked with one lookup for the whole batch;
+     * changes of unknown users are reported as {@link BatchStatus#NOT_FOUND}.
+     */
+    public List<BatchStatus> applyLikes(List<LikeChange> changes) {
+        BatchLimit.check(changes.size());
+        Set<Long> users = userStorage.findExistingIds(changes.stream().map(LikeChange::userId).toList());
+        List<LikeChange> known = new ArrayList<>(changes.size());
+        for (LikeChange change : changes) {
+            if (users.contains(change.userId())) {
+                known.add(change);
+            }
+        }
+        List<BatchStatus> applied = storage.applyLikes(known);
+        List<BatchStatus> results = new ArrayList<>(changes.size());
+        int next = 0;
+        for (LikeChange change : changes) {
+            results.add(users.contains(change.userId()) ? applied.get(next++) : BatchStatus.NOT_FOUND);
+        }
+        if (applied.contains(BatchStatus.APPLIED)) {
+            // a bulk change can move any film, re-ranking it precisely would cost more than a reload
+            popular.invalidateAll();
+        }
+        return results;
     }
 
     public List<Film> getTopTen(Integer count) {
-        return storage.getTopTen(count);
+        return popular.get(count, () -> Popular.of(storage.getTopTen(count), count)).films();
+    }
+
+    /**
+     * Not cached: queries rarely repeat, and the index answers from the matching words alone.
+     */
+    public List<Film> searchFilms(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("search query is empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new ValidationException("search query is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        return storage.searchFilms(query, limit);
+    }
+
+    /**
+     * Not cached: the ranking changes as time passes, and the storages read it in O(count) anyway.
+     */
+    public List<Film> getTrending(TrendingWindow window, int count) {
+        return storage.getTrending(window, count);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        popular.bindTo(registry, "films.popular");
+        Gauge.builder("filmorate.films", storage, FilmStorage::countFilms)
+                .description("Number of stored films")
+                .register(registry);
+        Gauge.builder("filmorate.likes", storage, FilmStorage::countLikes)
+                .description("Number of likes over all films")
+                .register(registry);
+    }
+
+    /**
+     * Drops the popular lists a film with more likes than before may now enter.
+     */
+    private void likesChanged(Film film) {
+        int likes = film.getLikes().size();
+        popular.invalidateIf((count, top) -> top.mayAdmit(film.getId(), likes));
+    }
+
+    /**
+     * A cached popular list together with the like counts it was ranked by.
+     */
+    private record Popular(List<Film> films, long[] ids, int lowestLikes, boolean full) {
+
+        static Popular of(List<Film> films, int count) {
+            long[] ids = films.stream().mapToLong(Film::getId).toArray();
+            int lowestLikes = films.isEmpty() ? 0 : films.getLast().getLikes().size();
+            return new Popular(List.copyOf(films), ids, lowestLikes, films.size() >= count);
+        }
+
+        boolean contains(long filmId) {
+            for (long id : ids) {
+                if (id == filmId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean mayAdmit(long filmId, int likes) {
+            if (!full || contains(filmId)) {
+                return true;
+            }
+            if (ids.length == 0) {
+                return false;
+            }
+            return likes > lowestLikes || likes == lowestLikes && filmId < ids[ids.length - 1];
+        }
     }
 }
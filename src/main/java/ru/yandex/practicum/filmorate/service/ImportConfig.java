@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool shared by all imports; each import bounds its own chunks in flight on top of it.
+ */
+@Configuration
+public class ImportConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline loader: imports the NDJSON files named by {@code filmorate.import.users} and
+ * {@code filmorate.import.films} on startup, users first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportRunner implements ApplicationRunner {
+    private final ImportService importService;
+    @Value("${filmorate.import.users:}")
+    private String usersFile;
+    @Value("${filmorate.import.films:}")
+    private String filmsFile;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!usersFile.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(usersFile))) {
+                report(usersFile, importService.importUsers(in));
+            }
+        }
+        if (!filmsFile.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(filmsFile))) {
+                report(filmsFile, importService.importFilms(in));
+            }
+        }
+    }
+
+    private void report(String file, ImportResult result) {
+        log.info("{}: {} imported, {} rejected", file, result.imported(), result.rejected());
+        result.errors().forEach(error -> log.warn("{}: {}", file, error));
+    }
+}
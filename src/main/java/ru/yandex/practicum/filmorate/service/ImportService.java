@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmValidator;
+import ru.yandex.practicum.filmorate.storage.user.UserValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads films and users from NDJSON, one JSON object per line.
+ * Lines are read in chunks; every chunk is parsed, validated and stored as one batch on a
+ * shared worker pool, with a bounded number of chunks in flight so memory use doesn't depend on
+ * the size of the input. Invalid records are skipped and reported, the rest are stored.
+ * Chunks are stored as they finish, so ids follow the input order only within a chunk.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService importExecutor;
+
+    public ImportResult importFilms(InputStream in) throws IOException {
+        return run(in, Film.class, FilmValidator::validateForCreate, filmService::importFilms);
+    }
+
+    public ImportResult importUsers(InputStream in) throws IOException {
+        return run(in, User.class, UserValidator::validate, userService::importUsers);
+    }
+
+    private <T> ImportResult run(InputStream in, Class<T> type, Consumer<T> validator, Consumer<List<T>> store)
+            throws IOException {
+        int maxInFlight = 2 * Runtime.getRuntime().availableProcessors();
+        Job<T> job = new Job<>(objectMapper.readerFor(type), validator, store, maxInFlight);
+        long started = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            long firstLine = 1;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    job.submit(importExecutor, chunk, firstLine);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                job.submit(importExecutor, chunk, firstLine);
+            }
+            job.awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("import interrupted", e);
+        }
+        ImportResult result = job.result();
+        log.info("imported {} {} records, rejected {}, in {} ms", result.imported(), type.getSimpleName(),
+                result.rejected(), System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private static final class Job<T> {
+        private final ObjectReader reader;
+        private final Consumer<T> validator;
+        private final Consumer<List<T>> store;
+        private final int maxInFlight;
+        private final Semaphore inFlight;
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Job(ObjectReader reader, Consumer<T> validator, Consumer<List<T>> store, int maxInFlight) {
+            this.reader = reader;
+            this.validator = validator;
+            this.store = store;
+            this.maxInFlight = maxInFlight;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        void submit(Executor executor, List<String> lines, long firstLine) throws InterruptedException {
+            inFlight.acquire();
+            rethrowFailure();
+            executor.execute(() -> {
+                try {
+                    process(lines, firstLine);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        void awaitAll() throws InterruptedException {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+            rethrowFailure();
+        }
+
+        ImportResult result() {
+            return new ImportResult(imported.get(), rejected.get(), List.copyOf(errors));
+        }
+
+        private void process(List<String> lines, long firstLine) {
+            List<T> valid = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    T entity = reader.readValue(line);
+                    validator.accept(entity);
+                    valid.add(entity);
+                } catch (JsonProcessingException e) {
+                    reject(firstLine + i, e.getOriginalMessage());
+                } catch (RuntimeException e) {
+                    reject(firstLine + i, e.getMessage());
+                }
+            }
+            if (!valid.isEmpty()) {
+                store.accept(valid);
+                imported.addAndGet(valid.size());
+            }
+        }
+
+        private void reject(long lineNumber, String reason) {
+            if (rejected.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+
+        private void rethrowFailure() {
+            RuntimeException e = failure.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Suggests films liked by the user's friends and by users who like the same films.
+ * Every stage is bounded, so the cost doesn't grow with the size of the graph: a sample of
+ * the user's likes, a sample of each film's likers, and only the closest neighbours are scored,
+ * each by a sample of their likes. The neighbours' likes are fetched with one storage call, then
+ * scored in parallel on the common fork-join pool, so no storage call runs on the pool.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+    private static final int MAX_SEED_FILMS = 100;
+    private static final int MAX_LIKERS_PER_FILM = 200;
+    private static final int MAX_NEIGHBOURS = 200;
+    private static final int MAX_LIKES_PER_NEIGHBOUR = 200;
+    // a friend counts as much as three shared likes
+    private static final int FRIEND_WEIGHT = 3;
+    private static final int PARALLEL_THRESHOLD = 32;
+    private static final Comparator<Map.Entry<Long, Long>> WEAKEST_FIRST = Map.Entry.<Long, Long>comparingByValue()
+            .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed());
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    public List<Film> recommend(long userId, int count) {
+        User user = userStorage.findUserById(userId)
+                .orElseThrow(() -> new NotFoundException("there is no such user"));
+        LongAdjacencySet ownLikes = LongAdjacencySet.of(filmStorage.getLikedFilmIds(userId));
+        List<Map.Entry<Long, Long>> neighbours = strongest(neighbours(user, ownLikes), MAX_NEIGHBOURS);
+        Map<Long, long[]> neighbourLikes = filmStorage.getLikedFilmIds(
+                neighbours.stream().map(Map.Entry::getKey).toList(), MAX_LIKES_PER_NEIGHBOUR);
+        Map<Long, Long> scores = (neighbours.size() >= PARALLEL_THRESHOLD ? neighbours.parallelStream()
+                : neighbours.stream())
+                .collect(HashMap::new, (result, neighbour) -> score(result, neighbour,
+                                neighbourLikes.get(neighbour.getKey()), ownLikes),
+                        (result, part) -> part.forEach((filmId, score) -> result.merge(filmId, score, Long::sum)));
+        return strongest(scores, count).stream()
+                .map(entry -> filmStorage.findFilmById(entry.getKey()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Weighs the users close to {@code user}: one point per shared like, {@link #FRIEND_WEIGHT} for a friend.
+     */
+    private Map<Long, Long> neighbours(User user, LongAdjacencySet ownLikes) {
+        Map<Long, Long> weights = new HashMap<>();
+        LongAdjacencySet friends = LongAdjacencySet.of(user.getFriends());
+        for (int i = 0; i < friends.size(); i += step(friends.size(), MAX_NEIGHBOURS)) {
+            weights.merge(friends.idAt(i), (long) FRIEND_WEIGHT, Long::sum);
+        }
+        for (int i = 0; i < ownLikes.size(); i += step(ownLikes.size(), MAX_SEED_FILMS)) {
+            Optional<Film> film = filmStorage.findFilmById(ownLikes.idAt(i));
+            if (film.isEmpty()) {
+                continue;
+            }
+            LongAdjacencySet likers = LongAdjacencySet.of(film.get().getLikes());
+            for (int j = 0; j < likers.size(); j += step(likers.size(), MAX_LIKERS_PER_FILM)) {
+                if (likers.idAt(j) != user.getId()) {
+                    weights.merge(likers.idAt(j), 1L, Long::sum);
+                }
+            }
+        }
+        return weights;
+    }
+
+    private static void score(Map<Long, Long> scores, Map.Entry<Long, Long> neighbour, long[] likes,
+                              LongAdjacencySet ownLikes) {
+        if (likes == null) {
+            return;
+        }
+        for (long filmId : likes) {
+            if (!ownLikes.contains(filmId)) {
+                scores.merge(filmId, neighbour.getValue(), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@code limit} entries with the highest values, ties going to the lower key.
+     */
+    private static List<Map.Entry<Long, Long>> strongest(Map<Long, Long> values, int limit) {
+        PriorityQueue<Map.Entry<Long, Long>> heap = new PriorityQueue<>(WEAKEST_FIRST);
+        for (Map.Entry<Long, Long> entry : values.entrySet()) {
+            heap.add(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Long>> result = new ArrayList<>(heap);
+        result.sort(WEAKEST_FIRST.reversed());
+        return result;
+    }
+
+    /**
+     * Step that visits at most {@code limit} evenly spread elements of {@code size}.
+     */
+    private static int step(int size, int limit) {
+        return Math.max(1, (size + limit - 1) / limit);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed results (Caffeine, W-TinyLFU eviction) that remembers which
+ * entity ids every entry was computed from, so a write drops exactly the entries it affects.
+ * A load that overlaps an invalidation is returned but not kept: its result may already
+ * be stale, and it is cheaper to miss once than to track what the load has seen.
+ */
+class ResultCache<K, V> {
+    private static final long[] NO_IDS = new long[0];
+
+    private final Cache<K, V> cache;
+    private final long maximumSize;
+    private final ConcurrentHashMap<Long, Set<K>> dependents = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loadsSinceSweep = new AtomicLong();
+    // loads register under the read lock, the sweep of stale index entries takes the write lock
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    ResultCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    V get(K key, Supplier<V> loader) {
+        return get(key, loader, (k, v) -> NO_IDS);
+    }
+
+    /**
+     * Returns the cached result for {@code key} or loads it; {@code dependencies} lists the ids
+     * whose change makes the loaded value stale.
+     */
+    V get(K key, Supplier<V> loader, BiFunction<K, V, long[]> dependencies) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidations.get();
+        V value = loader.get();
+        indexLock.readLock().lock();
+        try {
+            for (long id : dependencies.apply(key, value)) {
+                dependents.compute(id, (i, keys) -> {
+                    Set<K> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                    result.add(key);
+                    return result;
+                });
+            }
+            cache.put(key, value);
+            if (invalidations.get() != stamp) {
+                cache.invalidate(key);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        if (loadsSinceSweep.incrementAndGet() >= maximumSize) {
+            sweep();
+        }
+        return value;
+    }
+
+    /**
+     * Drops every entry computed from {@code id}.
+     */
+    void invalidate(long id) {
+        invalidations.incrementAndGet();
+        Set<K> keys = dependents.remove(id);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * Drops the entries matching {@code stale}.
+     */
+    void invalidateIf(BiPredicate<K, V> stale) {
+        invalidations.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> stale.test(entry.getKey(), entry.getValue()));
+    }
+
+    void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    void bindTo(MeterRegistry registry, String name) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    /**
+     * Forgets index entries of keys that were evicted, so the index stays as small as the cache.
+     */
+    private void sweep() {
+        if (!indexLock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            loadsSinceSweep.set(0);
+            dependents.values().removeIf(keys -> {
+                keys.removeIf(key -> !cache.asMap().containsKey(key));
+                return keys.isEmpty();
+            });
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
@@ -12,36 +17,114 @@ import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class UserService {
+public class UserService implements MeterBinder {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
+    private static final int FRIENDS_CACHE_SIZE = 10_000;
+    private static final int COMMON_FRIENDS_CACHE_SIZE = 10_000;
     private final UserStorage userStorage;
+    // entries depend on the users they were asked for and on every user they list
+    private final ResultCache<Long, List<User>> friends = new ResultCache<>(FRIENDS_CACHE_SIZE);
+    private final ResultCache<UserPair, List<User>> commonFriends = new ResultCache<>(COMMON_FRIENDS_CACHE_SIZE);
 
     public User addFriend(Long userId, Long friendId) {
         log.info("add friend service");
-        return userStorage.addFriend(userId, friendId);
+        User user = userStorage.addFriend(userId, friendId);
+        friendshipChanged(userId, friendId);
+        return user;
     }
 
     public void deleteFriend(Long userId, Long friendId) {
         userStorage.deleteFriend(userId, friendId);
+        friendshipChanged(userId, friendId);
+    }
+
+    public List<BatchStatus> applyFriendships(List<FriendshipChange> changes) {
+        BatchLimit.check(changes.size());
+        List<BatchStatus> results = userStorage.applyFriendships(changes);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == BatchStatus.APPLIED) {
+                friendshipChanged(changes.get(i).userId(), changes.get(i).friendId());
+            }
+        }
+        return results;
     }
 
     public List<User> getFriendsList(Long userId) {
-        return userStorage.getFriends(userId);
+        return friends.get(userId, () -> List.copyOf(userStorage.getFriends(userId)),
+                (id, users) -> dependencies(users, id));
     }
 
     public Collection<User> get() {
         return userStorage.get();
     }
 
+    public List<User> get(Long after, int limit) {
+        return userStorage.get(after, limit);
+    }
+
     public User create(User user) {
         return userStorage.create(user);
     }
 
+    public void importUsers(List<User> users) {
+        userStorage.importUsers(users);
+    }
+
     public User update(User user) {
-        return userStorage.update(user);
+        User updated = userStorage.update(user);
+        friends.invalidate(updated.getId());
+        commonFriends.invalidate(updated.getId());
+        return updated;
     }
 
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        return userStorage.getCommonFriends(userId, friendId);
+        return commonFriends.get(UserPair.of(userId, friendId),
+                () -> List.copyOf(userStorage.getCommonFriends(userId, friendId)),
+                (pair, users) -> dependencies(users, pair.low(), pair.high()));
+    }
+
+    /**
+     * Not cached: suggestions depend on friendships two hops away, and the storages bound the work per call.
+     */
+    public List<User> getFriendSuggestions(Long userId, int count) {
+        return userStorage.getFriendSuggestions(userId, count);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        friends.bindTo(registry, "users.friends");
+        commonFriends.bindTo(registry, "users.friends.common");
+        Gauge.builder("filmorate.users", userStorage, UserStorage::countUsers)
+                .description("Number of stored users")
+                .register(registry);
+        Gauge.builder("filmorate.friendships", userStorage, UserStorage::countFriendships)
+                .description("Number of mutual friendships")
+                .register(registry);
+    }
+
+    private void friendshipChanged(long userId, long friendId) {
+        friends.invalidate(userId);
+        friends.invalidate(friendId);
+        commonFriends.invalidate(userId);
+        commonFriends.invalidate(friendId);
+    }
+
+    private static long[] dependencies(List<User> users, long... requested) {
+        long[] ids = new long[users.size() + requested.length];
+        for (int i = 0; i < users.size(); i++) {
+            ids[i] = users.get(i).getId();
+        }
+        System.arraycopy(requested, 0, ids, users.size(), requested.length);
+        return ids;
+    }
+
+    /**
+     * Common friends don't depend on the order of the two users, so both orders share an entry.
+     */
+    private record UserPair(long low, long high) {
+
+        static UserPair of(long first, long second) {
+            return new UserPair(Math.min(first, second), Math.max(first, second));
+        }
     }
 }
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Builds the film and user objects the in-memory storages publish. A published object is
+ * never changed again: its setters throw, and a write publishes a new one in its place, so
+ * readers always see a whole version of an entity and need no locks to read or serialize it.
+ */
+public final class EntitySnapshots {
+
+    private EntitySnapshots() {
+    }
+
+    public static Film film(Film source, LongAdjacencySet likes) {
+        return new FilmVersion(source, likes);
+    }
+
+    public static User user(User source, LongAdjacencySet friends) {
+        return new UserVersion(source, friends);
+    }
+
+    /**
+     * Likes of a published film.
+     */
+    public static LongAdjacencySet likes(Film film) {
+        return ((FilmVersion) film).likes;
+    }
+
+    /**
+     * Friends of a published user.
+     */
+    public static LongAdjacencySet friends(User user) {
+        return ((UserVersion) user).friends;
+    }
+
+    private static UnsupportedOperationException published() {
+        return new UnsupportedOperationException("published versions are immutable, store a changed copy instead");
+    }
+
+    private static final class FilmVersion extends Film {
+        private final LongAdjacencySet likes;
+
+        private FilmVersion(Film source, LongAdjacencySet likes) {
+            super.setId(source.getId());
+            super.setName(source.getName());
+            super.setDescription(source.getDescription());
+            super.setReleaseDate(source.getReleaseDate());
+            super.setDuration(source.getDuration());
+            super.setLikes(likes);
+            this.likes = likes;
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw published();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw published();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw published();
+        }
+
+        @Override
+        public void setReleaseDate(LocalDate releaseDate) {
+            throw published();
+        }
+
+        @Override
+        public void setDuration(Integer duration) {
+            throw published();
+        }
+
+        @Override
+        public void setLikes(Set<Long> likes) {
+            throw published();
+        }
+    }
+
+    private static final class UserVersion extends User {
+        private final LongAdjacencySet friends;
+
+        private UserVersion(User source, LongAdjacencySet friends) {
+            super.setId(source.getId());
+            super.setEmail(source.getEmail());
+            super.setLogin(source.getLogin());
+            super.setName(source.getName());
+            super.setBirthday(source.getBirthday());
+            super.setFriends(friends);
+            this.friends = friends;
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw published();
+        }
+
+        @Override
+        public void setEmail(String email) {
+            throw published();
+        }
+
+        @Override
+        public void setLogin(String login) {
+            throw published();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw published();
+        }
+
+        @Override
+        public void setBirthday(LocalDate birthday) {
+            throw published();
+        }
+
+        @Override
+        public void setFriends(Set<Long> friends) {
+            throw published();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Ids exchanged with the database by the JDBC storages.
+ */
+public final class IdArrays {
+
+    private IdArrays() {
+    }
+
+    /**
+     * Turns an {@code ARRAY_AGG(id ORDER BY id)} column into an id set; a {@code NULL} array means no ids.
+     */
+    public static LongAdjacencySet toIdSet(Array array) throws SQLException {
+        if (array == null) {
+            return LongAdjacencySet.EMPTY;
+        }
+        Object[] values = (Object[]) array.getArray();
+        long[] ids = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ids[i] = ((Number) values[i]).longValue();
+        }
+        return LongAdjacencySet.ofSorted(ids);
+    }
+
+    /**
+     * Hands the keys generated by a batch insert to the inserted entities, in insertion order.
+     */
+    public static <T> void assignGeneratedKeys(Statement statement, List<T> entities, BiConsumer<T, Long> setId)
+            throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (T entity : entities) {
+                if (!keys.next()) {
+                    throw new SQLException("the database returned fewer keys than rows inserted");
+                }
+                setId.accept(entity, keys.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Returns which of {@code ids} are present in {@code table}, with one query for the whole collection.
+     */
+    public static Set<Long> findExisting(JdbcTemplate jdbcTemplate, String table, Collection<Long> ids) {
+        Object[] distinct = ids.stream().filter(Objects::nonNull).distinct().toArray();
+        if (distinct.length == 0) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id FROM " + table + " WHERE id = ANY (?)");
+            statement.setArray(1, connection.createArrayOf("BIGINT", distinct));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1)));
+    }
+}
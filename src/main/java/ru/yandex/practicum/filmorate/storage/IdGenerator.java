@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free id sequence for the in-memory storages.
+ */
+public class IdGenerator {
+    private final AtomicLong lastId = new AtomicLong();
+
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids and returns the first of them.
+     */
+    public long nextIds(int count) {
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Moves the sequence past an id that was restored from persisted state,
+     * so that new entities never reuse it.
+     */
+    public void seed(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
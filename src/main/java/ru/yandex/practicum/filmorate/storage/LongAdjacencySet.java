@@ -0,0 +1,313 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable set of ids kept in sorted primitive {@code long[]} chunks of at most 512 ids.
+ * Used for likes and friendships: one edge costs 8 bytes instead of a boxed {@code Long}
+ * plus a hash node. Lookups are two binary searches. A change returns a new set that copies
+ * only the chunk it touches and the directory of chunks, sharing every other chunk, so a
+ * like on a film with a million likes copies a few thousand slots instead of the whole array.
+ * The old set stays untouched and can be shared with readers and serialized while writers
+ * move on, without any locking.
+ */
+public final class LongAdjacencySet extends AbstractSet<Long> {
+    private static final int GALLOP_RATIO = 16;
+    private static final int CHUNK = 512;
+    private static final long[][] NO_CHUNKS = new long[0][];
+    private static final int[] NO_ENDS = new int[0];
+    public static final LongAdjacencySet EMPTY = new LongAdjacencySet(NO_CHUNKS, NO_ENDS);
+
+    // non-empty sorted runs, every id of a chunk is below every id of the next one
+    private final long[][] chunks;
+    // ends[i] is the number of ids in chunks 0..i
+    private final int[] ends;
+
+    private LongAdjacencySet(long[][] chunks, int[] ends) {
+        this.chunks = chunks;
+        this.ends = ends;
+    }
+
+    public static LongAdjacencySet of(Collection<Long> ids) {
+        if (ids instanceof LongAdjacencySet set) {
+            return set;
+        }
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        return ofSorted(ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray());
+    }
+
+    /**
+     * Wraps ids that are already sorted and distinct, such as ones read back from a snapshot.
+     * The array must not be changed afterwards.
+     */
+    public static LongAdjacencySet ofSorted(long[] sortedIds) {
+        if (sortedIds.length == 0) {
+            return EMPTY;
+        }
+        if (sortedIds.length <= CHUNK) {
+            return new LongAdjacencySet(new long[][]{sortedIds}, new int[]{sortedIds.length});
+        }
+        int count = (sortedIds.length + CHUNK - 1) / CHUNK;
+        long[][] chunks = new long[count][];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            ends[i] = Math.min(sortedIds.length, (i + 1) * CHUNK);
+            chunks[i] = Arrays.copyOfRange(sortedIds, i * CHUNK, ends[i]);
+        }
+        return new LongAdjacencySet(chunks, ends);
+    }
+
+    @Override
+    public int size() {
+        return ends.length == 0 ? 0 : ends[ends.length - 1];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && contains(id.longValue());
+    }
+
+    public boolean contains(long id) {
+        return chunks.length > 0 && Arrays.binarySearch(chunks[chunkOf(id)], id) >= 0;
+    }
+
+    /**
+     * Returns the {@code index}-th smallest id, for sampling a large set without walking it.
+     */
+    public long idAt(int index) {
+        Objects.checkIndex(index, size());
+        int chunk = Arrays.binarySearch(ends, index + 1);
+        chunk = chunk >= 0 ? chunk : -chunk - 1;
+        return chunks[chunk][index - (chunk == 0 ? 0 : ends[chunk - 1])];
+    }
+
+    /**
+     * Returns a set that also contains {@code id}, or this set if it already does.
+     * A full chunk is split in two.
+     */
+    public LongAdjacencySet with(long id) {
+        if (chunks.length == 0) {
+            return ofSorted(new long[]{id});
+        }
+        int chunk = chunkOf(id);
+        long[] ids = chunks[chunk];
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] grown = new long[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, insertAt);
+        grown[insertAt] = id;
+        System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+        if (grown.length <= CHUNK) {
+            return replace(chunk, 1, grown);
+        }
+        int half = grown.length / 2;
+        return replace(chunk, 1, Arrays.copyOfRange(grown, 0, half), Arrays.copyOfRange(grown, half, grown.length));
+    }
+
+    /**
+     * Returns a set without {@code id}, or this set if it doesn't contain it.
+     * A chunk left less than a quarter full is merged with a neighbour when the two fit in one.
+     */
+    public LongAdjacencySet without(long id) {
+        if (chunks.length == 0) {
+            return this;
+        }
+        int chunk = chunkOf(id);
+        long[] ids = chunks[chunk];
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+        if (size() == 1) {
+            return EMPTY;
+        }
+        if (ids.length == 1) {
+            return replace(chunk, 1);
+        }
+        long[] shrunk = new long[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, index);
+        System.arraycopy(ids, index + 1, shrunk, index, ids.length - index - 1);
+        int neighbour = chunk + 1 < chunks.length ? chunk + 1 : chunk - 1;
+        if (shrunk.length < CHUNK / 4 && neighbour >= 0 && shrunk.length + chunks[neighbour].length <= CHUNK) {
+            long[] lower = neighbour < chunk ? chunks[neighbour] : shrunk;
+            long[] upper = neighbour < chunk ? shrunk : chunks[neighbour];
+            long[] merged = Arrays.copyOf(lower, lower.length + upper.length);
+            System.arraycopy(upper, 0, merged, lower.length, upper.length);
+            return replace(Math.min(chunk, neighbour), 2, merged);
+        }
+        return replace(chunk, 1, shrunk);
+    }
+
+    /**
+     * Returns up to {@code limit} ids spread evenly over the set, in order.
+     */
+    public long[] sample(int limit) {
+        int step = Math.max(1, (size() + limit - 1) / limit);
+        long[] ids = new long[(size() + step - 1) / step];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idAt(i * step);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns a sorted copy of the ids.
+     */
+    public long[] toLongArray() {
+        long[] ids = new long[size()];
+        int offset = 0;
+        for (long[] chunk : chunks) {
+            System.arraycopy(chunk, 0, ids, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return ids;
+    }
+
+    /**
+     * Ids both sets contain, in order. When one set is much larger, the smaller one is
+     * looked up in it id by id instead of merging the two.
+     */
+    public static long[] intersect(LongAdjacencySet a, LongAdjacencySet b) {
+        LongAdjacencySet small = a.size() <= b.size() ? a : b;
+        LongAdjacencySet large = small == a ? b : a;
+        if (large.size() / GALLOP_RATIO <= small.size()) {
+            return intersect(a.toLongArray(), b.toLongArray());
+        }
+        long[] result = new long[small.size()];
+        int count = 0;
+        for (long[] chunk : small.chunks) {
+            for (long id : chunk) {
+                if (large.contains(id)) {
+                    result[count++] = id;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersects two sorted id arrays. Similar sizes are merged linearly; when one
+     * side is much larger it is galloped over instead, so a small friend list
+     * against a huge one costs O(small * log(large)).
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        long[] result = new long[a.length];
+        int count = 0;
+        if (b.length / GALLOP_RATIO > a.length) {
+            int from = 0;
+            for (int i = 0; i < a.length && from < b.length; i++) {
+                from = lowerBound(b, from, a[i]);
+                if (from < b.length && b[from] == a[i]) {
+                    result[count++] = a[i];
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int lowerBound(long[] sorted, int from, long key) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < sorted.length && sorted[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        int index = Arrays.binarySearch(sorted, low, Math.min(high, sorted.length), key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int chunk;
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return chunk < chunks.length;
+            }
+
+            @Override
+            public Long next() {
+                if (chunk >= chunks.length) {
+                    throw new NoSuchElementException();
+                }
+                long id = chunks[chunk][next++];
+                if (next == chunks[chunk].length) {
+                    chunk++;
+                    next = 0;
+                }
+                return id;
+            }
+        };
+    }
+
+    /**
+     * Index of the chunk that holds {@code id}, or would hold it: the last one starting
+     * at or below it, or the first one.
+     */
+    private int chunkOf(long id) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunks[mid][0] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns a set with the {@code count} chunks from {@code from} replaced by {@code replacement};
+     * the other chunks are shared.
+     */
+    private LongAdjacencySet replace(int from, int count, long[]... replacement) {
+        int length = chunks.length - count + replacement.length;
+        long[][] newChunks = new long[length][];
+        System.arraycopy(chunks, 0, newChunks, 0, from);
+        System.arraycopy(replacement, 0, newChunks, from, replacement.length);
+        System.arraycopy(chunks, from + count, newChunks, from + replacement.length, chunks.length - from - count);
+        int[] newEnds = new int[length];
+        System.arraycopy(ends, 0, newEnds, 0, from);
+        int end = from == 0 ? 0 : ends[from - 1];
+        for (int i = from; i < length; i++) {
+            end += newChunks[i].length;
+            newEnds[i] = end;
+        }
+        return new LongAdjacencySet(newChunks, newEnds);
+    }
+}
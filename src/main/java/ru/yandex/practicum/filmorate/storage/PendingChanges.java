@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Counts, per lock stripe, the changes reported to the journal and not applied yet. While a
+ * stripe has none, the published entities of that stripe are the latest state, so a writer
+ * holding the stripe lock can skip a change that would not alter them without journaling it.
+ */
+public class PendingChanges {
+    private final StripedLocks locks;
+    private final AtomicIntegerArray counts;
+
+    public PendingChanges(StripedLocks locks) {
+        this.locks = locks;
+        this.counts = new AtomicIntegerArray(locks.stripes());
+    }
+
+    public boolean noneFor(long id) {
+        return counts.get(locks.stripeOf(id)) == 0;
+    }
+
+    /**
+     * Counts {@code applied} as pending for the stripe of {@code id} until it completes,
+     * whether it succeeds or not. The caller holds the stripe lock.
+     */
+    public <T> CompletableFuture<T> track(long id, CompletableFuture<T> applied) {
+        int stripe = locks.stripeOf(id);
+        counts.incrementAndGet(stripe);
+        return applied.whenComplete((result, failure) -> counts.decrementAndGet(stripe));
+    }
+}
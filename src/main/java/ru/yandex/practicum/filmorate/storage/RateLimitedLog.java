@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warnings about events that clients can cause at will, such as lookups of unknown ids.
+ * At most {@code perSecond} of them are written each second. The rest are only counted, and
+ * the count is appended to the next warning that gets through.
+ */
+public final class RateLimitedLog {
+    private final Logger log;
+    private final int perSecond;
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicInteger written = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    public RateLimitedLog(Logger log, int perSecond) {
+        this.log = log;
+        this.perSecond = perSecond;
+    }
+
+    public void warn(String format, Object arg) {
+        if (log.isWarnEnabled()) {
+            if (tryAcquire()) {
+                log.warn(format + suppressedSuffix(), arg);
+            } else {
+                suppressed.increment();
+            }
+        }
+    }
+
+    public void warn(String format, Object first, Object second) {
+        if (log.isWarnEnabled()) {
+            if (tryAcquire()) {
+                log.warn(format + suppressedSuffix(), first, second);
+            } else {
+                suppressed.increment();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        long now = System.currentTimeMillis() / 1000;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            written.set(0);
+        }
+        return written.get() < perSecond && written.incrementAndGet() <= perSecond;
+    }
+
+    private String suppressedSuffix() {
+        long count = suppressed.sumThenReset();
+        return count == 0 ? "" : " (" + count + " similar warnings suppressed)";
+    }
+}
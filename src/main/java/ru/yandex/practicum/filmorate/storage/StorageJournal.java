@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Receives every change to the in-memory storages before it is applied. The storage passes
+ * the change together with {@code apply}, which the journal runs once the change is durable,
+ * in the order changes were reported; so a change is never visible before it is durable, and
+ * a change that fails to persist is never applied. The returned future completes with the
+ * result of {@code apply}. A storage reports the changes of one film or user under its lock,
+ * which orders them the same way in the journal and in memory.
+ */
+public interface StorageJournal {
+    StorageJournal NONE = new StorageJournal() {
+    };
+
+    /**
+     * {@code created} tells a new film, which comes with its likes, from an update of an
+     * existing one, whose likes are journaled change by change and stay as they are.
+     */
+    default <T> CompletableFuture<T> filmSaved(Film film, boolean created, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    /**
+     * {@code at} is the time of the change in epoch millis, trending films are ranked by it.
+     */
+    default <T> CompletableFuture<T> likeAdded(long filmId, long userId, long at, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    default <T> CompletableFuture<T> likeRemoved(long filmId, long userId, long at, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    /**
+     * {@code created} tells a new user, which comes with its friends, from an update, like
+     * {@link #filmSaved}.
+     */
+    default <T> CompletableFuture<T> userSaved(User user, boolean created, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    default <T> CompletableFuture<T> friendAdded(long userId, long friendId, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    default <T> CompletableFuture<T> friendRemoved(long userId, long friendId, Supplier<T> apply) {
+        return applyNow(apply);
+    }
+
+    /**
+     * Waits until a change is durable and applied and returns its result, rethrowing the
+     * failure of the journal or of the change itself. Callers must not hold a stripe lock.
+     */
+    static <T> T await(CompletableFuture<T> applied) {
+        try {
+            return applied.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> CompletableFuture<T> applyNow(Supplier<T> apply) {
+        try {
+            return CompletableFuture.completedFuture(apply.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
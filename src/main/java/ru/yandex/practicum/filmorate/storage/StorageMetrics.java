@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every call to a storage annotated with {@code @Timed(StorageMetrics.TIMER)}.
+ * The timer is tagged with the storage class, the method and the exception thrown, if any,
+ * so its count doubles as a call and error counter per operation.
+ */
+@Configuration
+public class StorageMetrics {
+    public static final String TIMER = "filmorate.storage";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by id, used to serialize changes of the same entity
+ * without a lock per entity.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void lock(long id) {
+        locks[stripeOf(id)].lock();
+    }
+
+    public void unlock(long id) {
+        locks[stripeOf(id)].unlock();
+    }
+
+    /**
+     * Locks the stripes of two ids, always in the same order, so that two-sided
+     * changes such as friendships can't deadlock each other.
+     */
+    public void lock(long first, long second) {
+        lockStripes(stripeOf(first), stripeOf(second));
+    }
+
+    public void unlock(long first, long second) {
+        unlockStripes(stripeOf(first), stripeOf(second));
+    }
+
+    /**
+     * Number of stripes; ids map to stripes {@code 0..stripes() - 1}.
+     */
+    public int stripes() {
+        return locks.length;
+    }
+
+    public int stripeOf(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (locks.length - 1);
+    }
+
+    public void lockStripes(int a, int b) {
+        locks[Math.min(a, b)].lock();
+        if (a != b) {
+            locks[Math.max(a, b)].lock();
+        }
+    }
+
+    public void unlockStripes(int a, int b) {
+        if (a != b) {
+            locks[Math.max(a, b)].unlock();
+        }
+        locks[Math.min(a, b)].unlock();
+    }
+
+    /**
+     * Orders the positions {@code 0..keys.length - 1} by key with a counting sort, so a batch
+     * can visit every stripe (or pair of stripes) once. Keys must be below {@code keyCount}.
+     */
+    public static int[] orderByKey(int[] keys, int keyCount) {
+        int[] starts = new int[keyCount + 1];
+        for (int key : keys) {
+            starts[key + 1]++;
+        }
+        for (int i = 0; i < keyCount; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[starts[keys[i]]++] = i;
+        }
+        return order;
+    }
+}
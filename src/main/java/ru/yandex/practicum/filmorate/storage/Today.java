@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Today's date in the system time zone. The date is recomputed when the day changes
+ * instead of on every call, so date checks on hot paths don't allocate.
+ */
+public final class Today {
+    private static volatile Day current = Day.of(System.currentTimeMillis());
+
+    private Today() {
+    }
+
+    public static LocalDate get() {
+        Day day = current;
+        long now = System.currentTimeMillis();
+        if (now < day.startMillis() || now >= day.endMillis()) {
+            day = Day.of(now);
+            current = day;
+        }
+        return day.date();
+    }
+
+    private record Day(LocalDate date, long startMillis, long endMillis) {
+        static Day of(long millis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            return new Day(date,
+                    date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+}
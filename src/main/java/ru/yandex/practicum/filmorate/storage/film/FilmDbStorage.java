@@ -0,0 +1,415 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.IdArrays;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Film storage on top of the {@code films} and {@code likes} tables.
+ * Every read is one statement: likes are aggregated into an array next to the film row,
+ * and the popular films are ranked by the database using the likes primary key.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@Timed(StorageMetrics.TIMER)
+public class FilmDbStorage implements FilmStorage {
+    private static final String SELECT_FILMS = """
+            SELECT f.id, f.name, f.description, f.release_date, f.duration,
+                   ARRAY_AGG(l.user_id ORDER BY l.user_id) FILTER (WHERE l.user_id IS NOT NULL) AS likes
+            FROM films f
+            LEFT JOIN likes l ON l.film_id = f.id
+            """;
+    private static final String GROUP_FILMS = " GROUP BY f.id, f.name, f.description, f.release_date, f.duration";
+    private static final String SELECT_TOP = """
+            WITH ranked AS (
+                SELECT f.id, COUNT(l.user_id) AS like_count
+                FROM films f
+                LEFT JOIN likes l ON l.film_id = f.id
+                GROUP BY f.id
+                ORDER BY like_count DESC, f.id
+                LIMIT ?
+            )
+            SELECT f.id, f.name, f.description, f.release_date, f.duration,
+                   ARRAY_AGG(l.user_id ORDER BY l.user_id) FILTER (WHERE l.user_id IS NOT NULL) AS likes
+            FROM ranked t
+            JOIN films f ON f.id = t.id
+            LEFT JOIN likes l ON l.film_id = f.id
+            GROUP BY f.id, f.name, f.description, f.release_date, f.duration, t.like_count
+            ORDER BY t.like_count DESC, f.id
+            """;
+    private static final String SELECT_SAMPLED_LIKES = """
+            SELECT user_id, film_id
+            FROM (
+                SELECT user_id, film_id,
+                       ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY film_id) AS position,
+                       COUNT(*) OVER (PARTITION BY user_id) AS total
+                FROM likes
+                WHERE user_id = ANY (?)
+            ) numbered
+            WHERE MOD(position - 1, (total + ? - 1) / ?) = 0
+            ORDER BY user_id, film_id
+            """;
+    private static final String SELECT_TRENDING = """
+            WITH ranked AS (
+                SELECT film_id, COUNT(*) AS like_count
+                FROM likes
+                WHERE liked_at >= ?
+                GROUP BY film_id
+                ORDER BY like_count DESC, film_id
+                LIMIT ?
+            )
+            SELECT f.id, f.name, f.description, f.release_date, f.duration,
+                   ARRAY_AGG(l.user_id ORDER BY l.user_id) AS likes
+            FROM ranked t
+            JOIN films f ON f.id = t.film_id
+            JOIN likes l ON l.film_id = f.id
+            GROUP BY f.id, f.name, f.description, f.release_date, f.duration, t.like_count
+            ORDER BY t.like_count DESC, f.id
+            """;
+    private static final String INSERT_LIKE = """
+            MERGE INTO likes t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) s (film_id, user_id)
+            ON t.film_id = s.film_id AND t.user_id = s.user_id
+            WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)
+            """;
+
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpleJdbcInsert filmInsert;
+
+    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        return jdbcTemplate.query(SELECT_FILMS + GROUP_FILMS + " ORDER BY f.id", this::mapFilm);
+    }
+
+    @Override
+    public List<Film> getFilms(Long after, int limit) {
+        return jdbcTemplate.query(SELECT_FILMS + " WHERE f.id > ?" + GROUP_FILMS + " ORDER BY f.id LIMIT ?",
+                this::mapFilm, after == null ? Long.MIN_VALUE : after, limit);
+    }
+
+    @Override
+    public List<Film> getFilms(FilmFilter filter, Long after, int limit) {
+        StringBuilder where = new StringBuilder(" WHERE f.id > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(after == null ? Long.MIN_VALUE : after);
+        if (filter.releasedFrom() != null) {
+            where.append(" AND f.release_date >= ?");
+            args.add(filter.releasedFrom());
+        }
+        if (filter.releasedTo() != null) {
+            where.append(" AND f.release_date <= ?");
+            args.add(filter.releasedTo());
+        }
+        if (filter.minDuration() != null) {
+            where.append(" AND f.duration >= ?");
+            args.add(filter.minDuration());
+        }
+        if (filter.maxDuration() != null) {
+            where.append(" AND f.duration <= ?");
+            args.add(filter.maxDuration());
+        }
+        args.add(limit);
+        return jdbcTemplate.query(SELECT_FILMS + where + GROUP_FILMS + " ORDER BY f.id LIMIT ?", this::mapFilm,
+                args.toArray());
+    }
+
+    @Override
+    @Transactional
+    public Film createFilms(Film film) {
+        FilmValidator.validateForCreate(film);
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", film.getName());
+        row.put("description", film.getDescription());
+        row.put("release_date", film.getReleaseDate());
+        row.put("duration", film.getDuration());
+        long filmId = filmInsert.executeAndReturnKey(row).longValue();
+        film.setId(filmId);
+        LongAdjacencySet likes = LongAdjacencySet.of(film.getLikes());
+        insertLikes(filmId, likes.toLongArray());
+        film.setLikes(likes);
+        log.info("creating film: {}", film);
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public Film updateFilms(Film film) {
+        Film newFilm = FilmValidator.mergeForUpdate(film, getFilm(film.getId()));
+        jdbcTemplate.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? WHERE id = ?",
+                newFilm.getName(), newFilm.getDescription(), newFilm.getReleaseDate(), newFilm.getDuration(),
+                newFilm.getId());
+        log.info("updating film: {}", newFilm);
+        return newFilm;
+    }
+
+    @Override
+    @Transactional
+    public void importFilms(List<Film> films) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO films (name, description, release_date, duration) VALUES (?, ?, ?, ?)",
+                    new String[]{"id"})) {
+                for (Film film : films) {
+                    statement.setString(1, film.getName());
+                    statement.setString(2, film.getDescription());
+                    statement.setObject(3, film.getReleaseDate());
+                    statement.setObject(4, film.getDuration());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                IdArrays.assignGeneratedKeys(statement, films, Film::setId);
+            }
+            return null;
+        });
+        films.forEach(film -> film.setLikes(LongAdjacencySet.EMPTY));
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        try {
+            jdbcTemplate.update(INSERT_LIKE, filmId, userId);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("there is no film with id: {}", filmId);
+            throw new NotFoundException("there is no such film");
+        }
+    }
+
+    @Override
+    public void deleteLike(Long filmId, Long userId) {
+        int deleted = jdbcTemplate.update(DELETE_LIKE, filmId, userId);
+        if (deleted == 0) {
+            getFilm(filmId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BatchStatus> applyLikes(List<LikeChange> changes) {
+        BatchStatus[] results = new BatchStatus[changes.size()];
+        Arrays.fill(results, BatchStatus.NOT_FOUND);
+        Set<Long> films = IdArrays.findExisting(jdbcTemplate, "films",
+                changes.stream().map(LikeChange::filmId).toList());
+        List<Integer> added = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            LikeChange change = changes.get(i);
+            if (change.userId() != null && films.contains(change.filmId())) {
+                (change.remove() ? removed : added).add(i);
+            }
+        }
+        try {
+            writeLikes(INSERT_LIKE, changes, added, results);
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("there is no such user");
+        }
+        writeLikes(DELETE_LIKE, changes, removed, results);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<Film> getTopTen(Integer count) {
+        return jdbcTemplate.query(SELECT_TOP, this::mapFilm, Math.max(count, 0));
+    }
+
+    /**
+     * Counts the likes whose {@code liked_at} falls within the window; a withdrawn like is simply gone.
+     */
+    @Override
+    public List<Film> getTrending(TrendingWindow window, int count) {
+        return jdbcTemplate.query(SELECT_TRENDING, this::mapFilm,
+                LocalDateTime.now().minusMinutes(window.minutes()), Math.max(count, 0));
+    }
+
+    /**
+     * Scans with {@code LIKE} per word; films matching in the name come first. Same words as
+     * the in-memory index, but a word may match in the middle of another one here.
+     */
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        List<String> words = FilmSearchIndex.tokens(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE ");
+        StringBuilder nameMatches = new StringBuilder();
+        for (int i = 0; i < words.size(); i++) {
+            String pattern = "%" + words.get(i) + "%";
+            where.append(i == 0 ? "" : " AND ").append("(LOWER(f.name) LIKE ? OR LOWER(f.description) LIKE ?)");
+            args.add(pattern);
+            args.add(pattern);
+            nameMatches.append(i == 0 ? "" : " + ").append("CASE WHEN LOWER(f.name) LIKE ? THEN 1 ELSE 0 END");
+        }
+        for (String word : words) {
+            args.add("%" + word + "%");
+        }
+        args.add(Math.max(limit, 0));
+        String sql = SELECT_FILMS + where + GROUP_FILMS + " ORDER BY " + nameMatches + " DESC, f.id LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapFilm, args.toArray());
+    }
+
+    @Override
+    public Optional<Film> findFilmById(Long filmId) {
+        if (filmId == null) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(SELECT_FILMS + " WHERE f.id = ?" + GROUP_FILMS, this::mapFilm, filmId).stream()
+                .findFirst();
+    }
+
+    @Override
+    public Set<Long> getLikedFilmIds(long userId) {
+        long[] filmIds = jdbcTemplate.query("SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id",
+                        (rs, rowNum) -> rs.getLong(1), userId)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        return LongAdjacencySet.ofSorted(filmIds);
+    }
+
+    /**
+     * Samples in the query: every n-th like of a user by film id, n chosen so at most {@code limit} are left.
+     */
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds, int limit) {
+        Object[] distinct = userIds.stream().filter(Objects::nonNull).distinct().toArray();
+        if (distinct.length == 0) {
+            return new HashMap<>();
+        }
+        Map<Long, List<Long>> liked = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_SAMPLED_LIKES);
+            statement.setArray(1, connection.createArrayOf("BIGINT", distinct));
+            statement.setInt(2, limit);
+            statement.setInt(3, limit);
+            return statement;
+        }, (RowCallbackHandler) rs -> liked.computeIfAbsent(rs.getLong(1), userId -> new ArrayList<>())
+                .add(rs.getLong(2)));
+        Map<Long, long[]> sampled = new HashMap<>();
+        liked.forEach((userId, filmIds) -> sampled.put(userId, filmIds.stream().mapToLong(Long::longValue).toArray()));
+        return sampled;
+    }
+
+    @Override
+    public long countFilms() {
+        return count("SELECT COUNT(*) FROM films");
+    }
+
+    @Override
+    public long countLikes() {
+        return count("SELECT COUNT(*) FROM likes");
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private Film getFilm(Long filmId) {
+        return findFilmById(filmId).orElseThrow(() -> {
+            log.warn("there is no film with id: {}", filmId);
+            return new NotFoundException("there is no such film");
+        });
+    }
+
+    /**
+     * Writes the likes of a new film as one JDBC batch.
+     */
+    private void insertLikes(long filmId, long[] userIds) {
+        if (userIds.length == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_LIKE, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setLong(1, filmId);
+                    statement.setLong(2, userIds[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return userIds.length;
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("there is no such user");
+        }
+    }
+
+    private void writeLikes(String sql, List<LikeChange> changes, List<Integer> indexes, BatchStatus[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                LikeChange change = changes.get(indexes.get(i));
+                statement.setLong(1, change.filmId());
+                statement.setLong(2, change.userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return indexes.size();
+            }
+        });
+        for (int i = 0; i < counts.length; i++) {
+            results[indexes.get(i)] = counts[i] > 0 ? BatchStatus.APPLIED : BatchStatus.UNCHANGED;
+        }
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        film.setReleaseDate(rs.getObject("release_date", LocalDate.class));
+        film.setDuration(rs.getObject("duration", Integer.class));
+        film.setLikes(IdArrays.toIdSet(rs.getArray("likes")));
+        return film;
+    }
+}
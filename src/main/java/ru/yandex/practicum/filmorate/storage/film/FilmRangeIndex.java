@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Film ids grouped into buckets of one numeric attribute, such as the release year or the
+ * duration, each bucket holding its ids in order. A range read merges the buckets of the range
+ * starting after a cursor id, so a page costs about its own size plus one step per bucket,
+ * not the size of the range. Bucket sizes are counted, so a range can be sized without
+ * walking it. Films without a value are not indexed.
+ * Reads don't lock: an update adds the new entry before removing the old one, so a film being
+ * updated may be seen under both values but is never missing; callers re-check the films they get.
+ * Emptied buckets are kept, there are only as many as distinct values were ever indexed.
+ */
+class FilmRangeIndex {
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Moves {@code filmId} from bucket {@code oldKey} to {@code key}; {@code null} means no value.
+     */
+    void update(long filmId, Long oldKey, Long key) {
+        if (oldKey != null && oldKey.equals(key)) {
+            return;
+        }
+        if (key != null) {
+            if (buckets.computeIfAbsent(key, k -> new Bucket()).add(filmId)) {
+                size.incrementAndGet();
+            }
+        }
+        if (oldKey != null) {
+            Bucket bucket = buckets.get(oldKey);
+            if (bucket != null && bucket.remove(filmId)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Number of indexed films.
+     */
+    long size() {
+        return size.get();
+    }
+
+    /**
+     * Number of films in the buckets from {@code from} to {@code to} inclusive.
+     */
+    long count(long from, long to) {
+        if (from > to) {
+            return 0;
+        }
+        long count = 0;
+        for (Bucket bucket : buckets.subMap(from, true, to, true).values()) {
+            count += bucket.size.get();
+        }
+        return count;
+    }
+
+    /**
+     * Ids greater than {@code after} in the buckets from {@code from} to {@code to} inclusive,
+     * in ascending order. The stream is lazy: a page of {@code n} ids reads about {@code n} entries.
+     */
+    LongStream idsAfter(long from, long to, Long after) {
+        return stream(merge(from, to, after));
+    }
+
+    /**
+     * Same ids as {@link #idsAfter}, as a merge that {@link #intersect} can skip forward.
+     */
+    Merge merge(long from, long to, Long after) {
+        Merge merge = new Merge();
+        if (from > to) {
+            return merge;
+        }
+        for (Bucket bucket : buckets.subMap(from, true, to, true).values()) {
+            merge.add(after == null ? bucket.ids : bucket.ids.tailSet(after, false));
+        }
+        return merge;
+    }
+
+    /**
+     * Ids that both merges return, in ascending order. The merge that is behind skips straight
+     * to the other's next id, one seek per bucket, so a page costs about its own size plus the
+     * skips, however large either range is.
+     */
+    static LongStream intersect(Merge a, Merge b) {
+        return stream(new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                while (a.hasNext() && b.hasNext()) {
+                    long fromA = a.peek();
+                    long fromB = b.peek();
+                    if (fromA == fromB) {
+                        return true;
+                    }
+                    if (fromA < fromB) {
+                        a.skipTo(fromB);
+                    } else {
+                        b.skipTo(fromA);
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                b.nextLong();
+                return a.nextLong();
+            }
+        });
+    }
+
+    private static LongStream stream(PrimitiveIterator.OfLong ids) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(ids,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    private static final class Bucket {
+        private final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        boolean add(long filmId) {
+            if (!ids.add(filmId)) {
+                return false;
+            }
+            size.incrementAndGet();
+            return true;
+        }
+
+        boolean remove(long filmId) {
+            if (!ids.remove(filmId)) {
+                return false;
+            }
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Merges ascending bucket ids, skipping an id seen in two buckets while it moves between them.
+     */
+    static final class Merge implements PrimitiveIterator.OfLong {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> Long.compare(a.id, b.id));
+        private long last = Long.MIN_VALUE;
+        private boolean started;
+
+        private void add(NavigableSet<Long> ids) {
+            Iterator<Long> rest = ids.iterator();
+            if (rest.hasNext()) {
+                heads.add(new Head(rest.next(), rest, ids));
+            }
+        }
+
+        /**
+         * The id {@link #nextLong} would return; only valid after {@link #hasNext} returned true.
+         */
+        long peek() {
+            return heads.peek().id;
+        }
+
+        /**
+         * Moves past every id lower than {@code id}, seeking within each bucket instead of walking it.
+         */
+        void skipTo(long id) {
+            while (!heads.isEmpty() && heads.peek().id < id) {
+                Head head = heads.poll();
+                head.rest = head.ids.tailSet(id, true).iterator();
+                advance(head);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!heads.isEmpty() && started && heads.peek().id == last) {
+                advance(heads.poll());
+            }
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Head head = heads.poll();
+            last = head.id;
+            started = true;
+            advance(head);
+            return last;
+        }
+
+        private void advance(Head head) {
+            if (head.rest.hasNext()) {
+                head.id = head.rest.next();
+                heads.add(head);
+            }
+        }
+    }
+
+    private static final class Head {
+        private long id;
+        private Iterator<Long> rest;
+        private final NavigableSet<Long> ids;
+
+        Head(long id, Iterator<Long> rest, NavigableSet<Long> ids) {
+            this.id = id;
+            this.rest = rest;
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over film names and descriptions: every word points to the sorted ids of the
+ * films that contain it. Every query word of at least {@link #MIN_PREFIX_LENGTH} characters is
+ * matched as a prefix, shorter ones as whole words; a film has to match all of them, and films
+ * rank by where they matched: a whole word in the name counts most, then a word starting with
+ * the query word in the name, then the same two in the description. Kept up to date on create
+ * and update, so searches never scan the catalogue, and scores are counted in a table of primitives.
+ * The work of a query is bounded at the cost of completeness for very common words: the first
+ * query word gathers at most {@link #MAX_CANDIDATES} films, names before descriptions and whole
+ * words before prefixes, lowest ids first, and later words only narrow those down; a prefix
+ * expands to at most {@link #MAX_PREFIX_TERMS} words per field besides the word itself, in
+ * alphabetical order. Below those bounds results are complete.
+ */
+class FilmSearchIndex {
+    // a shorter query word would expand to a large share of the vocabulary
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_CANDIDATES = 10_000;
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int NAME_WORD = 4;
+    private static final int NAME_PREFIX = 3;
+    private static final int DESCRIPTION_WORD = 2;
+    private static final int DESCRIPTION_PREFIX = 1;
+
+    private final TreeMap<String, Postings> names = new TreeMap<>();
+    private final TreeMap<String, Postings> descriptions = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Splits text into lower-case words of letters and digits, each word once.
+     */
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Re-indexes a film whose previous version was {@code old}, {@code null} for a new film.
+     */
+    void update(Film old, Film film) {
+        boolean sameName = old != null && Objects.equals(old.getName(), film.getName());
+        boolean sameDescription = old != null && Objects.equals(old.getDescription(), film.getDescription());
+        if (sameName && sameDescription) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!sameName) {
+                reindex(names, old == null ? null : old.getName(), film.getName(), film.getId());
+            }
+            if (!sameDescription) {
+                reindex(descriptions, old == null ? null : old.getDescription(), film.getDescription(), film.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of up to {@code limit} films matching every word of {@code query},
+     * best matches first, ties by id.
+     */
+    List<Long> search(String query, int limit) {
+        List<String> words = tokens(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        // longer words tend to match fewer films, starting with them keeps the candidate set small
+        words.sort(Comparator.comparingInt(String::length).reversed());
+        lock.readLock().lock();
+        try {
+            Scores scores = null;
+            for (String word : words) {
+                scores = match(word, scores);
+                if (scores.size() == 0) {
+                    return List.of();
+                }
+            }
+            return best(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the films matching {@code word}; when {@code candidates} is given, only those
+     * are kept and their scores are added up.
+     */
+    private Scores match(String word, Scores candidates) {
+        Scores matched = new Scores();
+        collect(names, word, NAME_WORD, NAME_PREFIX, candidates, matched);
+        collect(descriptions, word, DESCRIPTION_WORD, DESCRIPTION_PREFIX, candidates, matched);
+        if (candidates != null) {
+            for (int i = 0; i < matched.size(); i++) {
+                matched.addAt(i, candidates.get(matched.keyAt(i)));
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Words shorter than {@link #MIN_PREFIX_LENGTH} match whole words only; longer ones match
+     * the words they start, up to {@link #MAX_PREFIX_TERMS} of them. The word itself sorts
+     * first, so its films are scored before the prefix matches.
+     */
+    private static void collect(TreeMap<String, Postings> terms, String word, int wordScore, int prefixScore,
+                                Scores candidates, Scores matched) {
+        Map<String, Postings> matching = word.length() < MIN_PREFIX_LENGTH
+                ? terms.subMap(word, true, word, true)
+                : terms.subMap(word, word + Character.MAX_VALUE);
+        int expanded = 0;
+        for (Map.Entry<String, Postings> term : matching.entrySet()) {
+            boolean wholeWord = term.getKey().length() == word.length();
+            if (!wholeWord && expanded++ == MAX_PREFIX_TERMS) {
+                return;
+            }
+            int score = wholeWord ? wordScore : prefixScore;
+            Postings postings = term.getValue();
+            if (candidates != null && candidates.size() < postings.size) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    long filmId = candidates.keyAt(i);
+                    if (postings.contains(filmId)) {
+                        matched.max(filmId, score);
+                    }
+                }
+            } else {
+                for (int i = 0; i < postings.size; i++) {
+                    long filmId = postings.ids[i];
+                    if (candidates == null && matched.size() == MAX_CANDIDATES && matched.get(filmId) == 0) {
+                        return;
+                    }
+                    if (candidates == null || candidates.get(filmId) > 0) {
+                        matched.max(filmId, score);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Long> best(Scores scores, int limit) {
+        // weakest first: lowest score, then highest id
+        PriorityQueue<long[]> heap = new PriorityQueue<>((a, b) -> a[1] != b[1]
+                ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+        for (int i = 0; i < scores.size(); i++) {
+            heap.add(new long[]{scores.keyAt(i), scores.valueAt(i)});
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        Long[] ranked = new Long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll()[0];
+        }
+        return Arrays.asList(ranked);
+    }
+
+    private static void reindex(TreeMap<String, Postings> terms, String oldText, String text, long filmId) {
+        List<String> oldWords = tokens(oldText);
+        List<String> words = tokens(text);
+        for (String word : oldWords) {
+            if (!words.contains(word)) {
+                Postings postings = terms.get(word);
+                if (postings != null && postings.remove(filmId) && postings.size == 0) {
+                    terms.remove(word);
+                }
+            }
+        }
+        for (String word : words) {
+            terms.computeIfAbsent(word, key -> new Postings()).add(filmId);
+        }
+    }
+
+    /**
+     * Sorted film ids of one word. New films get the highest ids, so adding is usually an append.
+     */
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int index = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    /**
+     * Scores per film id in an open-addressing table of primitives. Slots are remembered in
+     * insertion order, so iterating costs the number of entries, not the capacity.
+     */
+    private static final class Scores {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        // 0 marks a free slot, scored ids always have a positive score
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int[] slots = new int[INITIAL_CAPACITY / 2];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Raises the score of {@code key} to {@code value} if it is lower.
+         */
+        void max(long key, int value) {
+            if (size >= slots.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (values[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] = Math.max(values[slot], value);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            slots[size++] = slot;
+        }
+
+        void addAt(int index, int value) {
+            values[slots[index]] += value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long keyAt(int index) {
+            return keys[slots[index]];
+        }
+
+        int valueAt(int index) {
+            return values[slots[index]];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            int[] oldSlots = slots;
+            int oldSize = size;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            slots = new int[oldSlots.length * 2];
+            size = 0;
+            for (int i = 0; i < oldSize; i++) {
+                max(oldKeys[oldSlots[i]], oldValues[oldSlots[i]]);
+            }
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -1,21 +1,83 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import ru.yandex.practicum.filmorate.model.BatchStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface FilmStorage {
 
     Collection<Film> getFilms();
 
+    /**
+     * Returns up to {@code limit} films with id greater than {@code after}, in id order.
+     */
+    List<Film> getFilms(Long after, int limit);
+
+    /**
+     * Returns up to {@code limit} films matching {@code filter} with id greater than {@code after}, in id order.
+     */
+    List<Film> getFilms(FilmFilter filter, Long after, int limit);
+
     Film createFilms(Film film);
 
     Film updateFilms(Film film);
 
+    /**
+     * Stores films that were already validated, in one operation. Ids are assigned in one block
+     * and imported films start without likes.
+     */
+    void importFilms(List<Film> films);
+
     void addLike(Long filmId, Long userId);
 
     void deleteLike(Long filmId, Long userId);
 
+    /**
+     * Adds and removes likes in bulk; the status at each index describes the change at that index.
+     * Users are expected to be checked by the caller.
+     */
+    List<BatchStatus> applyLikes(List<LikeChange> changes);
+
     List<Film> getTopTen(Integer count);
+
+    /**
+     * Returns up to {@code count} films ranked by the likes they got within {@code window},
+     * films without likes in the window are left out.
+     */
+    List<Film> getTrending(TrendingWindow window, int count);
+
+    /**
+     * Returns up to {@code limit} films whose name or description contains words starting with
+     * every word of {@code query}, best matches first.
+     */
+    List<Film> searchFilms(String query, int limit);
+
+    Optional<Film> findFilmById(Long filmId);
+
+    /**
+     * Returns the ids of the films {@code userId} likes, the inverse of {@link Film#getLikes()}.
+     */
+    Set<Long> getLikedFilmIds(long userId);
+
+    /**
+     * Returns up to {@code limit} ids of the films each of {@code userIds} likes, sorted and spread
+     * evenly over all of them, in one lookup for the whole collection. Users with no likes are left out.
+     */
+    Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds, int limit);
+
+    /**
+     * Counts are computed on every call and may walk the whole storage; they are meant for
+     * metrics scrapes, not for request handling.
+     */
+    long countFilms();
+
+    long countLikes();
 }
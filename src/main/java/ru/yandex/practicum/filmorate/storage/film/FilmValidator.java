@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.RateLimitedLog;
+import ru.yandex.practicum.filmorate.storage.Today;
+
+import java.time.LocalDate;
+
+/**
+ * Film checks shared by the storage implementations and the bulk import. This is the only
+ * place films are validated: create, update and import all apply the same rules.
+ */
+@Slf4j
+public final class FilmValidator {
+    private static final RateLimitedLog REJECTIONS = new RateLimitedLog(log, 10);
+    private static final LocalDate FIRST_MOVIE_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int MAX_DESCRIPTION_LENGTH = 200;
+
+    private FilmValidator() {
+    }
+
+    public static void validateForCreate(Film film) {
+        check(firstError(film));
+    }
+
+    /**
+     * Fills the fields an update leaves out from the stored film, likes included,
+     * and validates the result.
+     */
+    public static Film mergeForUpdate(Film film, Film oldFilmObject) {
+        if (film.getName() == null) {
+            film.setName(oldFilmObject.getName());
+        }
+        if (film.getDescription() == null) {
+            film.setDescription(oldFilmObject.getDescription());
+        }
+        if (film.getReleaseDate() == null) {
+            film.setReleaseDate(oldFilmObject.getReleaseDate());
+        }
+        if (film.getDuration() == null) {
+            film.setDuration(oldFilmObject.getDuration());
+        }
+        check(firstError(film));
+        film.setLikes(oldFilmObject.getLikes());
+        return film;
+    }
+
+    /**
+     * Returns the message of the first rule {@code film} breaks, or {@code null} if it is valid.
+     * Messages are constants, so checking a valid film allocates nothing.
+     */
+    public static String firstError(Film film) {
+        if (film.getName() == null || film.getName().isEmpty()) {
+            return "film name cannot be empty";
+        }
+        if (film.getDescription() == null || film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "film description is to long";
+        }
+        LocalDate releaseDate = film.getReleaseDate();
+        if (releaseDate == null || releaseDate.isBefore(FIRST_MOVIE_RELEASE_DATE) || releaseDate.isAfter(Today.get())) {
+            return "release date is not valid";
+        }
+        if (film.getDuration() == null || film.getDuration() <= 0) {
+            return "Duration cant be negative";
+        }
+        return null;
+    }
+
+    private static void check(String error) {
+        if (error != null) {
+            REJECTIONS.warn("rejected: {}", error);
+            throw new ValidationException(error);
+        }
+    }
+}
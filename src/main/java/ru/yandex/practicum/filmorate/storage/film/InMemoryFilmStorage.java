@@ -1,29 +1,80 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.Utils;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
-import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.EntitySnapshots;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+import ru.yandex.practicum.filmorate.storage.PendingChanges;
+import ru.yandex.practicum.filmorate.storage.RateLimitedLog;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@Timed(StorageMetrics.TIMER)
 public class InMemoryFilmStorage implements FilmStorage {
-    private final HashMap<Long, Film> films = new HashMap<>();
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-    private static final String FIRST_MOVIE_RELEASE_DATE = "28-12-1895";
-    private static final int MAX_DESCRIPTION_LENGTH = 200;
+    private static final RateLimitedLog MISSES = new RateLimitedLog(log, 10);
+    // a single range holding at least 1/WIDE_RANGE_SHARE of the films is cheaper to scan in id order than to merge
+    private static final int WIDE_RANGE_SHARE = 4;
+
+    private final ConcurrentSkipListMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    // user id -> films the user likes, the inverse of Film.likes
+    private final ConcurrentHashMap<Long, LongAdjacencySet> likedFilms = new ConcurrentHashMap<>();
+    // film id -> when each like was made, changed under the film's lock
+    private final ConcurrentHashMap<Long, LikeTimes> likeTimes = new ConcurrentHashMap<>();
+    private final PopularityIndex popularity = new PopularityIndex();
+    private final TrendingIndex trending = new TrendingIndex();
+    private final FilmSearchIndex search = new FilmSearchIndex();
+    private final FilmRangeIndex releaseYears = new FilmRangeIndex();
+    private final FilmRangeIndex durations = new FilmRangeIndex();
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final StripedLocks locks = new StripedLocks(64);
+    private final PendingChanges pending = new PendingChanges(locks);
+    // film id -> the latest version journaled but not applied yet, which the next update builds on
+    private final ConcurrentHashMap<Long, Film> unappliedFilms = new ConcurrentHashMap<>();
+    private final StorageJournal journal;
+
+    public InMemoryFilmStorage() {
+        this(StorageJournal.NONE);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(ObjectProvider<StorageJournal> journal) {
+        this(journal.getIfAvailable(() -> StorageJournal.NONE));
+    }
+
+    public InMemoryFilmStorage(StorageJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Collection<Film> getFilms() {
@@ -31,96 +82,453 @@ public class InMemoryFilmStorage implements FilmStorage {
     }
 
     @Override
-    public Film createFilms(Film film) {
-        if (isFilmValidForCreate(film)) {
-            long filmId = Utils.nextId(films);
-            film.setId(filmId);
-            films.put(filmId, film);
+    public List<Film> getFilms(Long after, int limit) {
+        Collection<Film> page = after == null ? films.values() : films.tailMap(after, false).values();
+        return page.stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Walks the ids after {@code after} in the filtered range, and with both filters given only
+     * the ids in both ranges, each range skipping ahead to the other; a single range that holds a
+     * large share of the catalogue is walked as all films instead. Stops at {@code limit} matches. Films are re-checked against the whole filter: range buckets are coarser than the
+     * bounds, and an update may be in the middle of moving a film.
+     */
+    @Override
+    public List<Film> getFilms(FilmFilter filter, Long after, int limit) {
+        if (filter.isEmpty()) {
+            return getFilms(after, limit);
         }
-        log.info("creating film: {}", film);
-        return film;
+        long fromYear = filter.releasedFrom() == null ? Long.MIN_VALUE : filter.releasedFrom().getYear();
+        long toYear = filter.releasedTo() == null ? Long.MAX_VALUE : filter.releasedTo().getYear();
+        long minDuration = filter.minDuration() == null ? Long.MIN_VALUE : filter.minDuration();
+        long maxDuration = filter.maxDuration() == null ? Long.MAX_VALUE : filter.maxDuration();
+        LongStream ids;
+        if (filter.byReleaseDate() && filter.byDuration()) {
+            ids = FilmRangeIndex.intersect(releaseYears.merge(fromYear, toYear, after),
+                    durations.merge(minDuration, maxDuration, after));
+        } else {
+            FilmRangeIndex index = filter.byReleaseDate() ? releaseYears : durations;
+            long from = filter.byReleaseDate() ? fromYear : minDuration;
+            long to = filter.byReleaseDate() ? toYear : maxDuration;
+            if (index.count(from, to) * WIDE_RANGE_SHARE >= index.size()) {
+                return (after == null ? films.values() : films.tailMap(after, false).values()).stream()
+                        .filter(filter::matches)
+                        .limit(limit)
+                        .collect(Collectors.toList());
+            }
+            ids = index.idsAfter(from, to, after);
+        }
+        return ids.mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .filter(filter::matches)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Film createFilms(Film film) {
+        FilmValidator.validateForCreate(film);
+        film.setId(idGenerator.nextId());
+        Film created = EntitySnapshots.film(film, LongAdjacencySet.of(film.getLikes()));
+        Film stored = StorageJournal.await(journal.filmSaved(created, true, () -> restore(created)));
+        log.info("creating film: {}", stored);
+        return stored;
     }
 
     @Override
     public Film updateFilms(Film film) {
-        if (!films.containsKey(film.getId())) {
-            log.warn("there is no film with id: {}", film.getId());
+        if (film.getId() == null || !films.containsKey(film.getId())) {
+            MISSES.warn("there is no film with id: {}", film.getId());
             throw new NotFoundException("there is no such film");
         }
-        Film newFilm = isFilmValidForUpdate(film);
-        films.put(film.getId(), newFilm);
-        log.info("updating film: {}", newFilm);
-        return film;
+        long filmId = film.getId();
+        CompletableFuture<Film> saved;
+        locks.lock(filmId);
+        try {
+            Film oldFilm = unappliedFilms.getOrDefault(filmId, getFilm(filmId));
+            Film newFilm = EntitySnapshots.film(FilmValidator.mergeForUpdate(film, oldFilm), EntitySnapshots.likes(oldFilm));
+            unappliedFilms.put(filmId, newFilm);
+            saved = journal.filmSaved(newFilm, false, () -> restore(newFilm))
+                    .whenComplete((applied, failure) -> unappliedFilms.remove(filmId, newFilm));
+        } finally {
+            locks.unlock(filmId);
+        }
+        Film updated = StorageJournal.await(saved);
+        log.info("updating film: {}", updated);
+        return updated;
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        if (!films.containsKey(filmId)) {
-            log.warn("there is no film with id: {}", filmId);
-            throw new NotFoundException("there is no such film");
+    public void importFilms(List<Film> newFilms) {
+        long firstId = idGenerator.nextIds(newFilms.size());
+        CompletableFuture<?>[] saved = new CompletableFuture<?>[newFilms.size()];
+        for (int i = 0; i < newFilms.size(); i++) {
+            newFilms.get(i).setId(firstId + i);
+            Film film = EntitySnapshots.film(newFilms.get(i), LongAdjacencySet.EMPTY);
+            saved[i] = journal.filmSaved(film, true, () -> restore(film));
         }
-        films.get(filmId).getLikes().add(userId);
+        StorageJournal.await(CompletableFuture.allOf(saved));
+        log.debug("imported {} films", newFilms.size());
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        getFilm(filmId);
+        StorageJournal.await(journalLike(filmId, userId, false, System.currentTimeMillis()));
     }
 
     @Override
     public void deleteLike(Long filmId, Long userId) {
-        if (!films.containsKey(filmId)) {
-            log.warn("there is no film with id: {}", filmId);
-            throw new NotFoundException("there is no such film");
+        getFilm(filmId);
+        StorageJournal.await(journalLike(filmId, userId, true, System.currentTimeMillis()));
+    }
+
+    /**
+     * Journals the changes stripe by stripe, taking each stripe lock once, and applies every
+     * change once it is durable; every changed film is re-ranked once however many of its
+     * likes changed.
+     */
+    @Override
+    public List<BatchStatus> applyLikes(List<LikeChange> changes) {
+        BatchStatus[] results = new BatchStatus[changes.size()];
+        int[] stripes = new int[changes.size()];
+        for (int i = 0; i < stripes.length; i++) {
+            Long filmId = changes.get(i).filmId();
+            stripes[i] = filmId == null ? 0 : locks.stripeOf(filmId);
         }
-        films.get(filmId).getLikes().remove(userId);
+        int[] order = StripedLocks.orderByKey(stripes, locks.stripes());
+        long at = System.currentTimeMillis();
+        List<CompletableFuture<Void>> applied = new ArrayList<>();
+        int from = 0;
+        while (from < order.length) {
+            int stripe = stripes[order[from]];
+            int to = from;
+            while (to < order.length && stripes[order[to]] == stripe) {
+                to++;
+            }
+            locks.lockStripes(stripe, stripe);
+            try {
+                applied.add(journalLikes(changes, Arrays.copyOfRange(order, from, to), at, results));
+            } finally {
+                locks.unlockStripes(stripe, stripe);
+            }
+            from = to;
+        }
+        StorageJournal.await(CompletableFuture.allOf(applied.toArray(CompletableFuture[]::new)));
+        return Arrays.asList(results);
     }
 
     @Override
     public List<Film> getTopTen(Integer count) {
-        return getFilms().stream()
-                .sorted(Comparator.comparing(film -> film.getLikes().size()))
-                .limit(count)
-                .collect(Collectors.toList()).reversed();
+        return popularity.top(count).stream()
+                .map(films::get)
+                .collect(Collectors.toList());
     }
 
-    private Film isFilmValidForUpdate(Film film) {
-        if (film.getId() == null || !films.containsKey(film.getId())) {
-            log.warn("there is no film with id: {}", film.getId());
-            throw new NotFoundException("There is no such film");
+    @Override
+    public List<Film> getTrending(TrendingWindow window, int count) {
+        return trending.top(window, count, System.currentTimeMillis()).stream()
+                .map(films::get)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return search.search(query, limit).stream()
+                .map(films::get)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Film> findFilmById(Long filmId) {
+        return filmId == null ? Optional.empty() : Optional.ofNullable(films.get(filmId));
+    }
+
+    @Override
+    public Set<Long> getLikedFilmIds(long userId) {
+        return likedFilms.getOrDefault(userId, LongAdjacencySet.EMPTY);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds, int limit) {
+        Map<Long, long[]> liked = new HashMap<>();
+        for (Long userId : userIds) {
+            LongAdjacencySet filmIds = likedFilms.get(userId);
+            if (filmIds != null && !filmIds.isEmpty()) {
+                liked.put(userId, filmIds.sample(limit));
+            }
+        }
+        return liked;
+    }
+
+    @Override
+    public long countFilms() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (Film film : films.values()) {
+            likes += film.getLikes().size();
+        }
+        return likes;
+    }
+
+    private void indexRanges(Film oldFilm, Film film) {
+        releaseYears.update(film.getId(), releaseYear(oldFilm), releaseYear(film));
+        durations.update(film.getId(), duration(oldFilm), duration(film));
+    }
+
+    private static Long releaseYear(Film film) {
+        return film == null || film.getReleaseDate() == null ? null : (long) film.getReleaseDate().getYear();
+    }
+
+    private static Long duration(Film film) {
+        return film == null || film.getDuration() == null ? null : film.getDuration().longValue();
+    }
+
+    /**
+     * Returns when {@code userId} liked {@code filmId} in epoch millis, or 0 if the like
+     * is not there or its time is not known.
+     */
+    public long likedAt(long filmId, long userId) {
+        locks.lock(filmId);
+        try {
+            LikeTimes times = likeTimes.get(filmId);
+            return times == null ? LikeTimes.UNKNOWN : times.get(userId);
+        } finally {
+            locks.unlock(filmId);
         }
-        Film oldFilmObject = films.get(film.getId());
-        if (film.getName() == null) {
-            film.setName(oldFilmObject.getName());
+    }
+
+    /**
+     * Puts a film read back from persisted state, keeping its id and skipping validation
+     * and the journal. A film that is already stored keeps its current likes.
+     */
+    public Film restore(Film film) {
+        return restore(film, null);
+    }
+
+    /**
+     * Same as {@link #restore(Film)}, with {@code likedAt} holding the time of each like
+     * in the order of the film's like ids, 0 where it is not known.
+     */
+    public Film restore(Film film, long[] likedAt) {
+        locks.lock(film.getId());
+        try {
+            Film oldFilm = films.get(film.getId());
+            LongAdjacencySet likes = oldFilm != null ? EntitySnapshots.likes(oldFilm) : LongAdjacencySet.of(film.getLikes());
+            Film restored = EntitySnapshots.film(film, likes);
+            films.put(film.getId(), restored);
+            if (oldFilm == null) {
+                indexLikes(restored);
+                restoreLikeTimes(restored, likedAt);
+            }
+            popularity.update(restored);
+            search.update(oldFilm, restored);
+            indexRanges(oldFilm, restored);
+            idGenerator.seed(film.getId());
+            return restored;
+        } finally {
+            locks.unlock(film.getId());
         }
-        if (film.getDescription() == null) {
-            film.setDescription(oldFilmObject.getDescription());
-        } else if (film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
-            throw new ValidationException("film description is to long");
+    }
+
+    /**
+     * Applies a like change made at {@code at} epoch millis, skipping the journal: replays one
+     * read back from persisted state, or applies a journaled one once it is durable.
+     * Returns whether the film changed.
+     */
+    public boolean restoreLike(long filmId, long userId, boolean remove, long at) {
+        getFilm(filmId);
+        locks.lock(filmId);
+        try {
+            Film newFilm = changeLike(films.get(filmId), userId, remove);
+            if (newFilm == null) {
+                return false;
+            }
+            popularity.update(newFilm);
+            likeTimeChanged(filmId, userId, remove, at);
+            return true;
+        } finally {
+            locks.unlock(filmId);
         }
-        if (film.getReleaseDate() == null) {
-            film.setReleaseDate(oldFilmObject.getReleaseDate());
-        } else if (!film.getReleaseDate().isAfter(LocalDate.parse(FIRST_MOVIE_RELEASE_DATE, dateTimeFormatter))) {
-            throw new ValidationException("release date is not valid");
+    }
+
+    /**
+     * Journals a like change and applies it once it is durable; the future tells whether the
+     * film changed. While nothing else is pending on the film's stripe, a change that would not
+     * alter the film is answered right away without journaling it.
+     */
+    private CompletableFuture<Boolean> journalLike(long filmId, long userId, boolean remove, long at) {
+        locks.lock(filmId);
+        try {
+            if (pending.noneFor(filmId) && !changesLike(films.get(filmId), userId, remove)) {
+                return CompletableFuture.completedFuture(false);
+            }
+            Supplier<Boolean> apply = () -> restoreLike(filmId, userId, remove, at);
+            return pending.track(filmId, remove
+                    ? journal.likeRemoved(filmId, userId, at, apply)
+                    : journal.likeAdded(filmId, userId, at, apply));
+        } finally {
+            locks.unlock(filmId);
         }
-        if (film.getDuration() == null) {
-            film.setDuration(oldFilmObject.getDuration());
+    }
+
+    /**
+     * Journals the changes at {@code group} positions, all of one stripe; each is applied once
+     * durable, and the changed films are re-ranked once after the last one. The caller holds
+     * the stripe lock, so no other change of the stripe lands between them in the journal.
+     */
+    private CompletableFuture<Void> journalLikes(List<LikeChange> changes, int[] group, long at,
+                                                 BatchStatus[] results) {
+        Film[] found = new Film[group.length];
+        int lastFound = -1;
+        for (int i = 0; i < group.length; i++) {
+            LikeChange change = changes.get(group[i]);
+            found[i] = change.filmId() == null || change.userId() == null ? null : films.get(change.filmId());
+            if (found[i] == null) {
+                results[group[i]] = BatchStatus.NOT_FOUND;
+            } else {
+                lastFound = i;
+            }
+        }
+        // filled by the applies, which run one after another in log order
+        Map<Long, Film> changed = new HashMap<>();
+        CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+        Long lockedId = null;
+        for (int i = 0; i <= lastFound; i++) {
+            LikeChange change = changes.get(group[i]);
+            Film film = found[i];
+            if (film == null) {
+                continue;
+            }
+            if (lockedId == null && pending.noneFor(film.getId())
+                    && !changesLike(film, change.userId(), change.remove())) {
+                results[group[i]] = BatchStatus.UNCHANGED;
+                continue;
+            }
+            lockedId = film.getId();
+            int position = group[i];
+            Supplier<Void> apply = () -> applyLike(change, position, at, results, changed);
+            last = change.remove()
+                    ? journal.likeRemoved(film.getId(), change.userId(), at, apply)
+                    : journal.likeAdded(film.getId(), change.userId(), at, apply);
+        }
+        if (lockedId == null) {
+            return last;
+        }
+        long stripeId = lockedId;
+        return pending.track(stripeId, last.whenComplete((applied, failure) -> rerank(stripeId, changed)));
+    }
+
+    /**
+     * Applies one journaled like change of a batch. Every record applies its own change, so a
+     * log rotation between two records of a batch never leaves a durable change unapplied.
+     */
+    private Void applyLike(LikeChange change, int position, long at, BatchStatus[] results, Map<Long, Film> changed) {
+        long filmId = change.filmId();
+        long userId = change.userId();
+        locks.lock(filmId);
+        try {
+            Film newFilm = changeLike(films.get(filmId), userId, change.remove());
+            if (newFilm == null) {
+                results[position] = BatchStatus.UNCHANGED;
+                return null;
+            }
+            likeTimeChanged(filmId, userId, change.remove(), at);
+            changed.put(filmId, newFilm);
+            results[position] = BatchStatus.APPLIED;
+            return null;
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    private void rerank(long stripeId, Map<Long, Film> changed) {
+        locks.lock(stripeId);
+        try {
+            changed.values().forEach(popularity::update);
+        } finally {
+            locks.unlock(stripeId);
+        }
+    }
+
+    private static boolean changesLike(Film film, long userId, boolean remove) {
+        return EntitySnapshots.likes(film).contains(userId) == remove;
+    }
+
+    /**
+     * Publishes a new version of {@code film} with the like added or removed and returns it,
+     * or returns {@code null} if the like was already there or already gone.
+     * The caller holds the film's lock and re-ranks the film.
+     */
+    private Film changeLike(Film film, long userId, boolean remove) {
+        LongAdjacencySet likes = EntitySnapshots.likes(film);
+        LongAdjacencySet newLikes = remove ? likes.without(userId) : likes.with(userId);
+        if (newLikes == likes) {
+            return null;
+        }
+        Film newFilm = EntitySnapshots.film(film, newLikes);
+        films.put(newFilm.getId(), newFilm);
+        likedFilms.compute(userId, (id, filmIds) -> {
+            LongAdjacencySet current = filmIds == null ? LongAdjacencySet.EMPTY : filmIds;
+            LongAdjacencySet changed = remove ? current.without(newFilm.getId()) : current.with(newFilm.getId());
+            return changed.isEmpty() ? null : changed;
+        });
+        return newFilm;
+    }
+
+    /**
+     * Remembers when a like was made, or forgets it and takes it out of the trending minute
+     * it was counted in. The caller holds the film's lock.
+     */
+    private void likeTimeChanged(long filmId, long userId, boolean remove, long at) {
+        if (!remove) {
+            likeTimes.computeIfAbsent(filmId, id -> new LikeTimes()).put(userId, at);
+            trending.record(filmId, 1, at);
+            return;
+        }
+        LikeTimes times = likeTimes.get(filmId);
+        long likedAt = times == null ? LikeTimes.UNKNOWN : times.remove(userId);
+        if (times != null && times.isEmpty()) {
+            likeTimes.remove(filmId);
+        }
+        if (likedAt != LikeTimes.UNKNOWN) {
+            trending.record(filmId, -1, likedAt);
         }
-        return film;
     }
 
-    private boolean isFilmValidForCreate(Film film) {
-        if (film.getName() == null || film.getName().isEmpty()) {
-            log.warn("film name is empty");
-            throw new ValidationException("film name cannot be empty");
+    private void restoreLikeTimes(Film film, long[] likedAt) {
+        if (likedAt == null) {
+            return;
         }
-        if (film.getDescription() == null || film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
-            log.warn("film description is to long");
-            throw new ValidationException("film description is to long");
+        int i = 0;
+        for (Long userId : film.getLikes()) {
+            if (likedAt[i] != LikeTimes.UNKNOWN) {
+                likeTimes.computeIfAbsent(film.getId(), id -> new LikeTimes()).put(userId, likedAt[i]);
+                trending.record(film.getId(), 1, likedAt[i]);
+            }
+            i++;
         }
-        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(LocalDate.parse(FIRST_MOVIE_RELEASE_DATE, dateTimeFormatter))) {
-            log.warn("release date is not valid");
-            throw new ValidationException("release date is not valid");
+    }
+
+    private void indexLikes(Film film) {
+        for (Long userId : film.getLikes()) {
+            likedFilms.merge(userId, LongAdjacencySet.ofSorted(new long[]{film.getId()}),
+                    (filmIds, added) -> filmIds.with(film.getId()));
         }
-        if (film.getDuration() == null || film.getDuration() <= 0) {
-            log.warn("Duration cant be negative");
-            throw new ValidationException("Duration cant be negative");
+    }
+
+    private Film getFilm(Long filmId) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            MISSES.warn("there is no film with id: {}", filmId);
+            throw new NotFoundException("there is no such film");
         }
-        return true;
+        return film;
     }
 }
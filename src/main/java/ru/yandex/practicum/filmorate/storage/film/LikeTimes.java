@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+/**
+ * When the users liked one film: user id to epoch millis, in an open-addressing table of
+ * primitives with linear probing. Not thread-safe; the storage reads and changes it under
+ * the film's lock.
+ */
+final class LikeTimes {
+    // likes restored without a time count as long past
+    static final long UNKNOWN = 0;
+
+    private long[] users = new long[4];
+    private long[] times = new long[4];
+    private boolean[] used = new boolean[4];
+    private int size;
+
+    long get(long userId) {
+        int slot = find(userId);
+        return used[slot] ? times[slot] : UNKNOWN;
+    }
+
+    void put(long userId, long at) {
+        if ((size + 1) * 2 > users.length) {
+            grow();
+        }
+        int slot = find(userId);
+        if (!used[slot]) {
+            used[slot] = true;
+            users[slot] = userId;
+            size++;
+        }
+        times[slot] = at;
+    }
+
+    /**
+     * Forgets the like of {@code userId} and returns when it was made.
+     */
+    long remove(long userId) {
+        int slot = find(userId);
+        if (!used[slot]) {
+            return UNKNOWN;
+        }
+        long at = times[slot];
+        used[slot] = false;
+        size--;
+        // shift the rest of the probe run back, so lookups never stop at the hole
+        int mask = users.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = mix(users[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                users[hole] = users[next];
+                times[hole] = times[next];
+                used[hole] = true;
+                used[next] = false;
+                hole = next;
+            }
+        }
+        return at;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long userId) {
+        int mask = users.length - 1;
+        int slot = mix(userId) & mask;
+        while (used[slot] && users[slot] != userId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldUsers = users;
+        long[] oldTimes = times;
+        boolean[] oldUsed = used;
+        users = new long[oldUsers.length * 2];
+        times = new long[oldUsers.length * 2];
+        used = new boolean[oldUsers.length * 2];
+        for (int i = 0; i < oldUsers.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldUsers[i]);
+                used[slot] = true;
+                users[slot] = oldUsers[i];
+                times[slot] = oldTimes[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
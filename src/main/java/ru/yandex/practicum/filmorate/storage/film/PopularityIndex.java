@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Films ordered by like count (most liked first, ties by id).
+ * Kept up to date on every like change, so top-N reads don't sort the catalogue.
+ * The like count is read under the index lock, so concurrent updates of one film
+ * always leave its latest count in the ranking.
+ */
+class PopularityIndex {
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byLikes = Integer.compare(b.likes(), a.likes());
+        return byLikes != 0 ? byLikes : Long.compare(a.filmId(), b.filmId());
+    };
+
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final HashMap<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void update(Film film) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = new Entry(film.getId(), film.getLikes().size());
+            Entry old = entries.put(entry.filmId(), entry);
+            if (old != null) {
+                ranking.remove(old);
+            }
+            ranking.add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Long> top(int count) {
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>(Math.min(Math.max(count, 0), ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < count && iterator.hasNext()) {
+                result.add(iterator.next().filmId());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Entry(long filmId, int likes) {
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Films ranked by the likes they got within each {@link TrendingWindow}.
+ * Likes are counted in per-minute buckets; every window keeps running totals and a ranking,
+ * and subtracts a bucket once when it slides out of the window. So a like costs one update per
+ * window, and a top-N read walks N entries plus the buckets that expired since the last call.
+ * A withdrawn like is taken out of the bucket of the minute it was made in, so it only lowers
+ * the windows that still count it.
+ */
+public class TrendingIndex {
+    private static final long MINUTE = 60_000;
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int byScore = Integer.compare(b.score(), a.score());
+        return byScore != 0 ? byScore : Long.compare(a.filmId(), b.filmId());
+    };
+
+    private final TreeMap<Long, Map<Long, Integer>> buckets = new TreeMap<>();
+    private final Window[] windows = new Window[TrendingWindow.values().length];
+    private final Window longest;
+    private final Lock lock = new ReentrantLock();
+    private long currentMinute = Long.MIN_VALUE;
+
+    public TrendingIndex() {
+        Window widest = null;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows[window.ordinal()] = new Window(window.minutes());
+            if (widest == null || window.minutes() > widest.minutes) {
+                widest = windows[window.ordinal()];
+            }
+        }
+        longest = widest;
+    }
+
+    /**
+     * Counts a like ({@code delta} 1) made at {@code at} epoch millis, or withdraws one
+     * ({@code delta} -1) that was made at {@code at}. Likes older than the longest window
+     * are ignored.
+     */
+    public void record(long filmId, int delta, long at) {
+        long minute = at / MINUTE;
+        lock.lock();
+        try {
+            advance(minute);
+            if (minute < longest.horizon) {
+                return;
+            }
+            buckets.computeIfAbsent(minute, key -> new HashMap<>()).merge(filmId, delta, (likes, change) -> likes + change == 0 ? null : likes + change);
+            for (Window window : windows) {
+                if (minute >= window.horizon) {
+                    window.add(filmId, delta);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of up to {@code count} films with the most likes within {@code window}
+     * as of {@code now}, leaving out films that gained none.
+     */
+    public List<Long> top(TrendingWindow window, int count, long now) {
+        lock.lock();
+        try {
+            advance(now / MINUTE);
+            TreeSet<Entry> ranking = windows[window.ordinal()].ranking;
+            List<Long> result = new ArrayList<>(Math.min(Math.max(count, 0), ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (result.size() < count && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.score() <= 0) {
+                    break;
+                }
+                result.add(entry.filmId());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slides the windows forward to {@code minute}. Clocks of concurrent writers may disagree
+     * slightly, so a minute behind the current one only lands in its bucket.
+     */
+    private void advance(long minute) {
+        if (minute <= currentMinute) {
+            return;
+        }
+        currentMinute = minute;
+        for (Window window : windows) {
+            long horizon = minute - window.minutes + 1;
+            for (Map<Long, Integer> bucket : buckets.subMap(window.horizon, horizon).values()) {
+                bucket.forEach((filmId, likes) -> window.add(filmId, -likes));
+            }
+            window.horizon = horizon;
+        }
+        buckets.headMap(longest.horizon).clear();
+    }
+
+    private static final class Window {
+        private final int minutes;
+        private final HashMap<Long, Integer> scores = new HashMap<>();
+        private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+        // the oldest minute still counted
+        private long horizon = Long.MIN_VALUE;
+
+        private Window(int minutes) {
+            this.minutes = minutes;
+        }
+
+        private void add(long filmId, int delta) {
+            Integer old = scores.get(filmId);
+            int score = (old == null ? 0 : old) + delta;
+            if (old != null) {
+                ranking.remove(new Entry(filmId, old));
+            }
+            if (score == 0) {
+                scores.remove(filmId);
+            } else {
+                scores.put(filmId, score);
+                ranking.add(new Entry(filmId, score));
+            }
+        }
+    }
+
+    private record Entry(long filmId, int score) {
+    }
+}
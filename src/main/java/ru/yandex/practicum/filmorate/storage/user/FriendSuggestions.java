@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks the friends of a user's friends by the number of mutual friends.
+ * Fan-out is capped on both hops, so a hub with a million friends costs no more than
+ * {@link #MAX_FRIENDS_VISITED} times {@link #MAX_FRIENDS_PER_FRIEND} visits; capped lists are
+ * sampled evenly, and the counts then come from the sample. Counting uses open-addressing
+ * tables of primitives that are pooled between calls, and large traversals are split into
+ * shards counted in parallel on the common fork-join pool.
+ */
+final class FriendSuggestions {
+    private static final int MAX_FRIENDS_VISITED = 256;
+    private static final int MAX_FRIENDS_PER_FRIEND = 512;
+    // edges to visit before a traversal is worth splitting
+    private static final int PARALLEL_WORK = 8_192;
+    private static final int MAX_POOLED = 2 * Runtime.getRuntime().availableProcessors();
+    private static final Comparator<Suggestion> WEAKEST_FIRST = Comparator.comparingInt(Suggestion::mutual)
+            .thenComparing(Comparator.comparingLong(Suggestion::userId).reversed());
+
+    private final LongFunction<LongAdjacencySet> friendsOf;
+    private final ConcurrentLinkedQueue<MutualCounter> pool = new ConcurrentLinkedQueue<>();
+
+    FriendSuggestions(LongFunction<LongAdjacencySet> friendsOf) {
+        this.friendsOf = friendsOf;
+    }
+
+    /**
+     * Returns the ids of up to {@code count} users who are not yet friends of {@code userId},
+     * most mutual friends first, ties going to the lower id.
+     */
+    long[] suggest(long userId, LongAdjacencySet friends, int count) {
+        int step = step(friends.size(), MAX_FRIENDS_VISITED);
+        LongAdjacencySet[] visited = new LongAdjacencySet[(friends.size() + step - 1) / step];
+        long work = 0;
+        for (int i = 0; i < visited.length; i++) {
+            visited[i] = friendsOf.apply(friends.idAt(i * step));
+            work += Math.min(visited[i].size(), MAX_FRIENDS_PER_FRIEND);
+        }
+        MutualCounter counter;
+        if (work < PARALLEL_WORK || visited.length < 2) {
+            counter = count(visited, 0, 1);
+        } else {
+            int shards = Math.min(visited.length, ForkJoinPool.getCommonPoolParallelism());
+            counter = IntStream.range(0, shards).parallel()
+                    .mapToObj(shard -> count(visited, shard, shards))
+                    .reduce((a, b) -> {
+                        a.addAll(b);
+                        release(b);
+                        return a;
+                    })
+                    .orElseThrow();
+        }
+        try {
+            return strongest(counter, userId, friends, count);
+        } finally {
+            release(counter);
+        }
+    }
+
+    /**
+     * Counts the friends of every {@code shards}-th visited friend, starting at {@code shard}.
+     */
+    private MutualCounter count(LongAdjacencySet[] visited, int shard, int shards) {
+        MutualCounter counter = pool.poll();
+        if (counter == null) {
+            counter = new MutualCounter();
+        }
+        for (int i = shard; i < visited.length; i += shards) {
+            LongAdjacencySet friendsOfFriend = visited[i];
+            int step = step(friendsOfFriend.size(), MAX_FRIENDS_PER_FRIEND);
+            for (int j = 0; j < friendsOfFriend.size(); j += step) {
+                counter.add(friendsOfFriend.idAt(j), 1);
+            }
+        }
+        return counter;
+    }
+
+    private void release(MutualCounter counter) {
+        counter.clear();
+        if (pool.size() < MAX_POOLED) {
+            pool.offer(counter);
+        }
+    }
+
+    private static long[] strongest(MutualCounter counter, long userId, LongAdjacencySet friends, int count) {
+        PriorityQueue<Suggestion> heap = new PriorityQueue<>(WEAKEST_FIRST);
+        for (int i = 0; i < counter.size(); i++) {
+            long candidate = counter.keyAt(i);
+            int mutual = counter.countAt(i);
+            if (candidate == userId || friends.contains(candidate)) {
+                continue;
+            }
+            if (heap.size() < count) {
+                heap.add(new Suggestion(candidate, mutual));
+            } else if (count > 0 && heap.peek().isWeakerThan(candidate, mutual)) {
+                heap.poll();
+                heap.add(new Suggestion(candidate, mutual));
+            }
+        }
+        List<Suggestion> ranked = new ArrayList<>(heap);
+        ranked.sort(WEAKEST_FIRST.reversed());
+        return ranked.stream().mapToLong(Suggestion::userId).toArray();
+    }
+
+    /**
+     * Step that visits at most {@code limit} evenly spread elements of {@code size}.
+     */
+    private static int step(int size, int limit) {
+        return Math.max(1, (size + limit - 1) / limit);
+    }
+
+    private record Suggestion(long userId, int mutual) {
+
+        boolean isWeakerThan(long otherId, int otherMutual) {
+            return mutual < otherMutual || mutual == otherMutual && userId > otherId;
+        }
+    }
+
+    /**
+     * Counts per user id in an open-addressing table. Slots are remembered in insertion order,
+     * so iterating and clearing cost the number of entries, not the capacity.
+     */
+    private static final class MutualCounter {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        // 0 marks a free slot, counted ids always have a positive count
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int[] slots = new int[INITIAL_CAPACITY / 2];
+        private int size;
+
+        void add(long key, int count) {
+            if (size >= slots.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (counts[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot] += count;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = count;
+            slots[size++] = slot;
+        }
+
+        void addAll(MutualCounter other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.keyAt(i), other.countAt(i));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        long keyAt(int index) {
+            return keys[slots[index]];
+        }
+
+        int countAt(int index) {
+            return counts[slots[index]];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                counts[slots[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldSlots = slots;
+            int oldSize = size;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldCounts.length * 2];
+            slots = new int[oldSlots.length * 2];
+            size = 0;
+            for (int i = 0; i < oldSize; i++) {
+                add(oldKeys[oldSlots[i]], oldCounts[oldSlots[i]]);
+            }
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -1,133 +1,418 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.Utils;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
-import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntitySnapshots;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+import ru.yandex.practicum.filmorate.storage.PendingChanges;
+import ru.yandex.practicum.filmorate.storage.RateLimitedLog;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
 
-import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@Timed(StorageMetrics.TIMER)
 public class InMemoryUserStorage implements UserStorage {
-    private final HashMap<Long, User> users;
+    private static final RateLimitedLog MISSES = new RateLimitedLog(log, 10);
 
+    private final ConcurrentSkipListMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final StripedLocks locks = new StripedLocks(64);
+    private final PendingChanges pending = new PendingChanges(locks);
+    private final FriendSuggestions suggestions = new FriendSuggestions(this::friendsOf);
+    private final StorageJournal journal;
+
+    public InMemoryUserStorage() {
+        this(StorageJournal.NONE);
+    }
+
+    @Autowired
+    public InMemoryUserStorage(ObjectProvider<StorageJournal> journal) {
+        this(journal.getIfAvailable(() -> StorageJournal.NONE));
+    }
+
+    public InMemoryUserStorage(StorageJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Collection<User> get() {
         return users.values();
     }
 
+    @Override
+    public List<User> get(Long after, int limit) {
+        Collection<User> page = after == null ? users.values() : users.tailMap(after, false).values();
+        return page.stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Friends the user is created with are befriended like with {@link #addFriend}, on both sides,
+     * the same as the database storage does.
+     */
     @Override
     public User create(User user) {
-        if (isUserValid(user)) {
-            long userId = Utils.nextId(users);
-            user.setId(userId);
-            users.put(userId, user);
-            System.out.println(user);
-            log.info("creating user: {}", user);
+        UserValidator.validate(user);
+        LongAdjacencySet friends = LongAdjacencySet.of(user.getFriends());
+        for (long friendId : friends.toLongArray()) {
+            if (!users.containsKey(friendId)) {
+                MISSES.warn("friend {} of a new user not found", friendId);
+                throw new NotFoundException("user not found");
+            }
         }
-        return user;
+        long userId = idGenerator.nextId();
+        user.setId(userId);
+        User created = EntitySnapshots.user(user, LongAdjacencySet.EMPTY);
+        User stored = StorageJournal.await(journal.userSaved(created, true, () -> restore(created)));
+        if (!friends.isEmpty()) {
+            applyFriendships(friends.stream()
+                    .map(friendId -> new FriendshipChange(userId, friendId, false))
+                    .toList());
+            stored = users.get(userId);
+        }
+        log.info("creating user: {}", stored);
+        return stored;
     }
 
     @Override
     public User update(User user) {
-        if (!users.containsKey(user.getId())) {
-            log.warn("user with id {} doesn't exist. cant update", user.getId());
+        if (user.getId() == null || !users.containsKey(user.getId())) {
+            MISSES.warn("user with id {} doesn't exist. cant update", user.getId());
             throw new NotFoundException("user doesn't exist. cant update");
         }
-        if (isUserValid(user)) {
-            users.put(user.getId(), user);
+        UserValidator.validate(user);
+        CompletableFuture<User> saved;
+        locks.lock(user.getId());
+        try {
+            User updated = EntitySnapshots.user(user, EntitySnapshots.friends(users.get(user.getId())));
+            saved = journal.userSaved(updated, false, () -> restore(updated));
+        } finally {
+            locks.unlock(user.getId());
         }
 
-        return user;
+        return StorageJournal.await(saved);
+    }
+
+    @Override
+    public void importUsers(List<User> newUsers) {
+        long firstId = idGenerator.nextIds(newUsers.size());
+        CompletableFuture<?>[] saved = new CompletableFuture<?>[newUsers.size()];
+        for (int i = 0; i < newUsers.size(); i++) {
+            newUsers.get(i).setId(firstId + i);
+            User user = EntitySnapshots.user(newUsers.get(i), LongAdjacencySet.EMPTY);
+            saved[i] = journal.userSaved(user, true, () -> restore(user));
+        }
+        StorageJournal.await(CompletableFuture.allOf(saved));
+        log.debug("imported {} users", newUsers.size());
     }
 
     @Override
     public User addFriend(Long userId, Long friendId) {
-        if (findUserById(userId).isEmpty() || findUserById(friendId).isEmpty()) {
-            log.error("user {} or friend {} not found", userId, friendId);
+        User user = users.get(userId);
+        User friend = users.get(friendId);
+        if (user == null || friend == null) {
+            MISSES.warn("user {} or friend {} not found", userId, friendId);
             throw new NotFoundException("user not found");
         }
-        addToFriendsSet(userId, friendId);
-        addToFriendsSet(friendId, userId);
-        return users.get(userId);
+        CompletableFuture<Boolean> changed;
+        locks.lock(userId, friendId);
+        try {
+            changed = journalFriendship(userId, friendId, false);
+        } finally {
+            locks.unlock(userId, friendId);
+        }
+        StorageJournal.await(changed);
+        user = users.get(userId);
+        log.info("new friend with id: {}, was added to a friend list of user: {}", friendId, userId);
+        log.info("new friend with id: {}, was added to a friend list of user: {}", userId, friendId);
+        return user;
     }
 
     @Override
     public void deleteFriend(Long userId, Long friendId) {
-        if (findUserById(userId).isEmpty() || findUserById(friendId).isEmpty()) {
-            log.error("user {} or friend {} not found", userId, friendId);
+        User user = users.get(userId);
+        User friend = users.get(friendId);
+        if (user == null || friend == null) {
+            MISSES.warn("user {} or friend {} not found", userId, friendId);
             throw new NotFoundException("user not found");
         }
-        users.get(userId).getFriends().remove(friendId);
+        CompletableFuture<Boolean> changed;
+        locks.lock(userId, friendId);
+        try {
+            changed = journalFriendship(userId, friendId, true);
+        } finally {
+            locks.unlock(userId, friendId);
+        }
+        StorageJournal.await(changed);
         log.info("friend with id: {}, was removed from a friends list of user: {}", friendId, userId);
-        users.get(friendId).getFriends().remove(userId);
         log.info("friend with id: {}, was removed from a friends list of user: {}", userId, friendId);
     }
 
+    /**
+     * Journals the changes grouped by the pair of stripes they lock, taking each pair once,
+     * and applies every change once it is durable.
+     */
+    @Override
+    public List<BatchStatus> applyFriendships(List<FriendshipChange> changes) {
+        BatchStatus[] results = new BatchStatus[changes.size()];
+        int stripes = locks.stripes();
+        int[] pairs = new int[changes.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            FriendshipChange change = changes.get(i);
+            int a = change.userId() == null ? 0 : locks.stripeOf(change.userId());
+            int b = change.friendId() == null ? 0 : locks.stripeOf(change.friendId());
+            pairs[i] = Math.min(a, b) * stripes + Math.max(a, b);
+        }
+        int[] order = StripedLocks.orderByKey(pairs, stripes * stripes);
+        List<CompletableFuture<Void>> applied = new ArrayList<>();
+        int from = 0;
+        while (from < order.length) {
+            int pair = pairs[order[from]];
+            int to = from;
+            while (to < order.length && pairs[order[to]] == pair) {
+                to++;
+            }
+            locks.lockStripes(pair / stripes, pair % stripes);
+            try {
+                applied.add(journalFriendships(changes, Arrays.copyOfRange(order, from, to), results));
+            } finally {
+                locks.unlockStripes(pair / stripes, pair % stripes);
+            }
+            from = to;
+        }
+        StorageJournal.await(CompletableFuture.allOf(applied.toArray(CompletableFuture[]::new)));
+        return Arrays.asList(results);
+    }
+
     @Override
     public List<User> getFriends(Long userId) {
-        if (findUserById(userId).isEmpty()) {
+        User user = users.get(userId);
+        if (user == null) {
             throw new NotFoundException("There is no such user");
         }
-        return users.get(userId).getFriends().stream()
+        return EntitySnapshots.friends(user).stream()
                 .map(users::get)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        List<User> userFriends = getFriends(userId);
-        List<User> friendFriends = getFriends(friendId);
-        List<User> commonFriends = userFriends.stream()
-                .filter(friendFriends::contains)
-                .collect(Collectors.toList());
-        log.info("Common friends for {} and {} are: {}", userId, friendId, commonFriends);
+        long[] commonIds = LongAdjacencySet.intersect(friendIds(userId), friendIds(friendId));
+        List<User> commonFriends = new ArrayList<>(commonIds.length);
+        for (long commonId : commonIds) {
+            commonFriends.add(users.get(commonId));
+        }
+        log.info("Common friends for {} and {} are: {}", userId, friendId, commonIds);
         return commonFriends;
     }
 
-    private void addToFriendsSet(Long userId, Long friendId) {
-        if (users.get(userId).getFriends() == null) {
-            users.get(userId).setFriends(new HashSet<Long>(Math.toIntExact(friendId)));
-        } else {
-            Set<Long> newFriendSet = users.get(userId).getFriends();
-            newFriendSet.add(friendId);
-            users.get(userId).setFriends(newFriendSet);
+    @Override
+    public List<User> getFriendSuggestions(Long userId, int count) {
+        long[] suggestedIds = suggestions.suggest(userId, friendIds(userId), count);
+        List<User> suggested = new ArrayList<>(suggestedIds.length);
+        for (long suggestedId : suggestedIds) {
+            suggested.add(users.get(suggestedId));
+        }
+        return suggested;
+    }
+
+    /**
+     * Puts a user read back from persisted state, keeping its id and skipping validation
+     * and the journal. A user that is already stored keeps its current friends.
+     */
+    public User restore(User user) {
+        locks.lock(user.getId());
+        try {
+            User oldUser = users.get(user.getId());
+            LongAdjacencySet friends = oldUser != null
+                    ? EntitySnapshots.friends(oldUser)
+                    : LongAdjacencySet.of(user.getFriends());
+            User restored = EntitySnapshots.user(user, friends);
+            users.put(user.getId(), restored);
+            idGenerator.seed(user.getId());
+            return restored;
+        } finally {
+            locks.unlock(user.getId());
         }
-        log.info("new friend with id: {}, was added to a friend list of user: {}", friendId, userId);
+    }
 
+    /**
+     * Applies a friendship change, skipping the journal: replays one read back from persisted
+     * state, or applies a journaled one once it is durable. Returns whether either user changed.
+     */
+    public boolean restoreFriendship(long userId, long friendId, boolean remove) {
+        if (!users.containsKey(userId) || !users.containsKey(friendId)) {
+            throw new NotFoundException("user not found");
+        }
+        locks.lock(userId, friendId);
+        try {
+            return changeFriendship(userId, friendId, remove);
+        } finally {
+            locks.unlock(userId, friendId);
+        }
     }
 
-    private boolean isUserValid(User user) {
-        if (user.getEmail() == null || !user.getEmail().contains("@")) {
-            log.warn("email is empty or doesn't have @");
-            throw new ValidationException("email is empty or doesn't have @");
+    /**
+     * Journals a friendship change and applies it once it is durable; the future tells whether
+     * either user changed. While nothing else is pending on the stripes of both users, a change
+     * that would alter neither is answered right away without journaling it.
+     * The caller holds the locks of both users.
+     */
+    private CompletableFuture<Boolean> journalFriendship(long userId, long friendId, boolean remove) {
+        if (pending.noneFor(userId) && pending.noneFor(friendId) && !changesFriendship(userId, friendId, remove)) {
+            return CompletableFuture.completedFuture(false);
         }
-        if (user.getLogin() == null || user.getLogin().contains(" ")) {
-            log.warn("login is empty or contains spaces");
-            throw new ValidationException("login is empty or contains spaces");
+        Supplier<Boolean> apply = () -> restoreFriendship(userId, friendId, remove);
+        return pending.track(friendId, pending.track(userId, remove
+                ? journal.friendRemoved(userId, friendId, apply)
+                : journal.friendAdded(userId, friendId, apply)));
+    }
+
+    /**
+     * Journals the changes at {@code group} positions, all of one pair of stripes, and applies
+     * each once it is durable. The caller holds both stripe locks, so no
+     * other change of those stripes lands between them in the journal.
+     */
+    private CompletableFuture<Void> journalFriendships(List<FriendshipChange> changes, int[] group,
+                                                       BatchStatus[] results) {
+        int lastFound = -1;
+        for (int i = 0; i < group.length; i++) {
+            FriendshipChange change = changes.get(group[i]);
+            if (change.userId() == null || change.friendId() == null
+                    || !users.containsKey(change.userId()) || !users.containsKey(change.friendId())) {
+                results[group[i]] = BatchStatus.NOT_FOUND;
+            } else {
+                lastFound = i;
+            }
+        }
+        CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+        FriendshipChange first = null;
+        for (int i = 0; i <= lastFound; i++) {
+            FriendshipChange change = changes.get(group[i]);
+            if (results[group[i]] == BatchStatus.NOT_FOUND) {
+                continue;
+            }
+            long userId = change.userId();
+            long friendId = change.friendId();
+            if (first == null && pending.noneFor(userId) && pending.noneFor(friendId)
+                    && !changesFriendship(userId, friendId, change.remove())) {
+                results[group[i]] = BatchStatus.UNCHANGED;
+                continue;
+            }
+            if (first == null) {
+                first = change;
+            }
+            int position = group[i];
+            Supplier<Void> apply = () -> applyFriendship(change, position, results);
+            last = change.remove()
+                    ? journal.friendRemoved(userId, friendId, apply)
+                    : journal.friendAdded(userId, friendId, apply);
         }
-        if (user.getBirthday().isAfter(LocalDate.now())) {
-            log.warn("looks like you was born in the future. check your birthday");
-            throw new ValidationException("date of birth is after current date");
+        if (first == null) {
+            return last;
         }
-        if (user.getName() == null) {
-            log.info("username is empty will use login as a username");
-            user.setName(user.getLogin());
+        return pending.track(first.friendId(), pending.track(first.userId(), last));
+    }
+
+    /**
+     * Applies one journaled friendship change of a batch. Every record applies its own change,
+     * so a log rotation between two records of a batch never leaves a durable change unapplied.
+     */
+    private Void applyFriendship(FriendshipChange change, int position, BatchStatus[] results) {
+        locks.lock(change.userId(), change.friendId());
+        try {
+            boolean changed = changeFriendship(change.userId(), change.friendId(), change.remove());
+            results[position] = changed ? BatchStatus.APPLIED : BatchStatus.UNCHANGED;
+        } finally {
+            locks.unlock(change.userId(), change.friendId());
         }
+        return null;
+    }
+
+    private boolean changesFriendship(long userId, long friendId, boolean remove) {
+        return friendsOf(userId).contains(friendId) == remove || friendsOf(friendId).contains(userId) == remove;
+    }
+
+    /**
+     * Publishes new versions of both users with the friendship added or removed.
+     * Each user is read again before it is changed, so befriending oneself works too.
+     * The caller holds the locks of both users.
+     */
+    private boolean changeFriendship(long userId, long friendId, boolean remove) {
+        boolean changed = changeFriends(userId, friendId, remove);
+        return changeFriends(friendId, userId, remove) || changed;
+    }
+
+    private boolean changeFriends(long userId, long friendId, boolean remove) {
+        User user = users.get(userId);
+        LongAdjacencySet friends = EntitySnapshots.friends(user);
+        LongAdjacencySet newFriends = remove ? friends.without(friendId) : friends.with(friendId);
+        if (newFriends == friends) {
+            return false;
+        }
+        users.put(userId, EntitySnapshots.user(user, newFriends));
         return true;
     }
 
+    private LongAdjacencySet friendsOf(long userId) {
+        User user = users.get(userId);
+        return user == null ? LongAdjacencySet.EMPTY : EntitySnapshots.friends(user);
+    }
+
+    private LongAdjacencySet friendIds(Long userId) {
+        User user = userId == null ? null : users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("There is no such user");
+        }
+        return EntitySnapshots.friends(user);
+    }
+
     @Override
     public Optional<User> findUserById(Long id) {
-        return users.values().stream()
-                .filter(user -> user.getId().equals(id)).findFirst();
+        return id == null ? Optional.empty() : Optional.ofNullable(users.get(id));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && users.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public long countUsers() {
+        return users.size();
+    }
+
+    @Override
+    public long countFriendships() {
+        long friends = 0;
+        for (User user : users.values()) {
+            friends += user.getFriends().size();
+        }
+        return friends / 2;
     }
 }
@@ -0,0 +1,333 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdArrays;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * User storage on top of the {@code users} and {@code friendships} tables.
+ * A friendship is a row per direction, written together in one JDBC batch.
+ * Friend lists and common friends are single joins over the friendships primary key.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@Timed(StorageMetrics.TIMER)
+public class UserDbStorage implements UserStorage {
+    private static final String USER_COLUMNS = """
+            SELECT u.id, u.email, u.login, u.name, u.birthday,
+                   ARRAY_AGG(fr.friend_id ORDER BY fr.friend_id) FILTER (WHERE fr.friend_id IS NOT NULL) AS friends
+            """;
+    private static final String FRIENDS_JOIN = " LEFT JOIN friendships fr ON fr.user_id = u.id";
+    private static final String GROUP_USERS = " GROUP BY u.id, u.email, u.login, u.name, u.birthday ORDER BY u.id";
+    private static final String SELECT_USERS = USER_COLUMNS + " FROM users u" + FRIENDS_JOIN;
+    private static final String SELECT_FRIENDS = USER_COLUMNS + """
+             FROM friendships r
+            JOIN users u ON u.id = r.friend_id
+            """ + FRIENDS_JOIN + " WHERE r.user_id = ?" + GROUP_USERS;
+    private static final String SELECT_COMMON_FRIENDS = USER_COLUMNS + """
+             FROM friendships a
+            JOIN friendships b ON b.friend_id = a.friend_id
+            JOIN users u ON u.id = a.friend_id
+            """ + FRIENDS_JOIN + " WHERE a.user_id = ? AND b.user_id = ?" + GROUP_USERS;
+    private static final String SELECT_SUGGESTIONS = """
+            WITH ranked AS (
+                SELECT b.friend_id AS id, COUNT(*) AS mutual
+                FROM friendships a
+                JOIN friendships b ON b.user_id = a.friend_id
+                WHERE a.user_id = ? AND b.friend_id <> a.user_id
+                  AND NOT EXISTS (SELECT 1 FROM friendships c WHERE c.user_id = a.user_id AND c.friend_id = b.friend_id)
+                GROUP BY b.friend_id
+                ORDER BY mutual DESC, b.friend_id
+                LIMIT ?
+            )
+            """ + USER_COLUMNS + " FROM ranked s JOIN users u ON u.id = s.id" + FRIENDS_JOIN
+            + " GROUP BY u.id, u.email, u.login, u.name, u.birthday, s.mutual ORDER BY s.mutual DESC, u.id";
+    private static final String INSERT_FRIENDSHIP = """
+            MERGE INTO friendships t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) s (user_id, friend_id)
+            ON t.user_id = s.user_id AND t.friend_id = s.friend_id
+            WHEN NOT MATCHED THEN INSERT (user_id, friend_id) VALUES (s.user_id, s.friend_id)
+            """;
+    private static final String DELETE_FRIENDSHIP = "DELETE FROM friendships WHERE user_id = ? AND friend_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpleJdbcInsert userInsert;
+
+    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public Collection<User> get() {
+        return jdbcTemplate.query(SELECT_USERS + GROUP_USERS, this::mapUser);
+    }
+
+    @Override
+    public List<User> get(Long after, int limit) {
+        return jdbcTemplate.query(SELECT_USERS + " WHERE u.id > ?" + GROUP_USERS + " LIMIT ?", this::mapUser,
+                after == null ? Long.MIN_VALUE : after, limit);
+    }
+
+    @Override
+    @Transactional
+    public User create(User user) {
+        UserValidator.validate(user);
+        Map<String, Object> row = new HashMap<>();
+        row.put("email", user.getEmail());
+        row.put("login", user.getLogin());
+        row.put("name", user.getName());
+        row.put("birthday", user.getBirthday());
+        long userId = userInsert.executeAndReturnKey(row).longValue();
+        user.setId(userId);
+        LongAdjacencySet friends = LongAdjacencySet.of(user.getFriends());
+        List<FriendshipChange> friendships = new ArrayList<>(friends.size());
+        List<Integer> indexes = new ArrayList<>(friends.size());
+        for (long friendId : friends.toLongArray()) {
+            indexes.add(friendships.size());
+            friendships.add(new FriendshipChange(userId, friendId, false));
+        }
+        try {
+            writeFriendships(INSERT_FRIENDSHIP, friendships, indexes, new BatchStatus[friendships.size()]);
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("user not found");
+        }
+        user.setFriends(friends);
+        log.info("creating user: {}", user);
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public User update(User user) {
+        Optional<User> oldUser = findUserById(user.getId());
+        if (oldUser.isEmpty()) {
+            log.warn("user with id {} doesn't exist. cant update", user.getId());
+            throw new NotFoundException("user doesn't exist. cant update");
+        }
+        UserValidator.validate(user);
+        jdbcTemplate.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
+        user.setFriends(oldUser.get().getFriends());
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public void importUsers(List<User> users) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", new String[]{"id"})) {
+                for (User user : users) {
+                    statement.setString(1, user.getEmail());
+                    statement.setString(2, user.getLogin());
+                    statement.setString(3, user.getName());
+                    statement.setObject(4, user.getBirthday());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                IdArrays.assignGeneratedKeys(statement, users, User::setId);
+            }
+            return null;
+        });
+        users.forEach(user -> user.setFriends(LongAdjacencySet.EMPTY));
+    }
+
+    @Override
+    @Transactional
+    public User addFriend(Long userId, Long friendId) {
+        try {
+            writeFriendship(INSERT_FRIENDSHIP, userId, friendId);
+        } catch (DataIntegrityViolationException e) {
+            log.error("user {} or friend {} not found", userId, friendId);
+            throw new NotFoundException("user not found");
+        }
+        log.info("new friend with id: {}, was added to a friend list of user: {}", friendId, userId);
+        log.info("new friend with id: {}, was added to a friend list of user: {}", userId, friendId);
+        return findUserById(userId).orElseThrow(() -> new NotFoundException("user not found"));
+    }
+
+    @Override
+    @Transactional
+    public void deleteFriend(Long userId, Long friendId) {
+        if (writeFriendship(DELETE_FRIENDSHIP, userId, friendId) == 0
+                && (!exists(userId) || !exists(friendId))) {
+            log.error("user {} or friend {} not found", userId, friendId);
+            throw new NotFoundException("user not found");
+        }
+        log.info("friend with id: {}, was removed from a friends list of user: {}", friendId, userId);
+        log.info("friend with id: {}, was removed from a friends list of user: {}", userId, friendId);
+    }
+
+    @Override
+    @Transactional
+    public List<BatchStatus> applyFriendships(List<FriendshipChange> changes) {
+        BatchStatus[] results = new BatchStatus[changes.size()];
+        Arrays.fill(results, BatchStatus.NOT_FOUND);
+        Set<Long> users = findExistingIds(changes.stream()
+                .flatMap(change -> Stream.of(change.userId(), change.friendId()))
+                .toList());
+        List<Integer> added = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            FriendshipChange change = changes.get(i);
+            if (users.contains(change.userId()) && users.contains(change.friendId())) {
+                (change.remove() ? removed : added).add(i);
+            }
+        }
+        writeFriendships(INSERT_FRIENDSHIP, changes, added, results);
+        writeFriendships(DELETE_FRIENDSHIP, changes, removed, results);
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) {
+        List<User> friends = jdbcTemplate.query(SELECT_FRIENDS, this::mapUser, userId);
+        if (friends.isEmpty() && !exists(userId)) {
+            throw new NotFoundException("There is no such user");
+        }
+        return friends;
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long friendId) {
+        List<User> commonFriends = jdbcTemplate.query(SELECT_COMMON_FRIENDS, this::mapUser, userId, friendId);
+        if (commonFriends.isEmpty() && (!exists(userId) || !exists(friendId))) {
+            throw new NotFoundException("There is no such user");
+        }
+        log.info("Common friends for {} and {} are: {}", userId, friendId, commonFriends.size());
+        return commonFriends;
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(Long userId, int count) {
+        List<User> suggestions = jdbcTemplate.query(SELECT_SUGGESTIONS, this::mapUser, userId, Math.max(count, 0));
+        if (suggestions.isEmpty() && !exists(userId)) {
+            throw new NotFoundException("There is no such user");
+        }
+        return suggestions;
+    }
+
+    @Override
+    public Optional<User> findUserById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(SELECT_USERS + " WHERE u.id = ?" + GROUP_USERS, this::mapUser, id).stream()
+                .findFirst();
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return IdArrays.findExisting(jdbcTemplate, "users", ids);
+    }
+
+    @Override
+    public long countUsers() {
+        return count("SELECT COUNT(*) FROM users");
+    }
+
+    @Override
+    public long countFriendships() {
+        return count("SELECT COUNT(*) FROM friendships") / 2;
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Writes both directions of every listed friendship as one JDBC batch.
+     */
+    private void writeFriendships(String sql, List<FriendshipChange> changes, List<Integer> indexes,
+                                  BatchStatus[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                FriendshipChange change = changes.get(indexes.get(i / 2));
+                statement.setLong(1, i % 2 == 0 ? change.userId() : change.friendId());
+                statement.setLong(2, i % 2 == 0 ? change.friendId() : change.userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return indexes.size() * 2;
+            }
+        });
+        for (int i = 0; i < indexes.size(); i++) {
+            boolean changed = counts[2 * i] > 0 || counts[2 * i + 1] > 0;
+            results[indexes.get(i)] = changed ? BatchStatus.APPLIED : BatchStatus.UNCHANGED;
+        }
+    }
+
+    /**
+     * Writes both directions of a friendship as one JDBC batch and returns the number of changed rows.
+     */
+    private int writeFriendship(String sql, long userId, long friendId) {
+        int[] changed = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setLong(1, i == 0 ? userId : friendId);
+                statement.setLong(2, i == 0 ? friendId : userId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return 2;
+            }
+        });
+        return changed[0] + changed[1];
+    }
+
+    private boolean exists(Long userId) {
+        return userId != null && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)", Boolean.class, userId));
+    }
+
+    private User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        user.setBirthday(rs.getObject("birthday", LocalDate.class));
+        user.setFriends(IdArrays.toIdSet(rs.getArray("friends")));
+        return user;
+    }
+}
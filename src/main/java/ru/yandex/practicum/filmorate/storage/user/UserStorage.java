@@ -1,26 +1,67 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
     Collection<User> get();
 
+    /**
+     * Returns up to {@code limit} users with id greater than {@code after}, in id order.
+     */
+    List<User> get(Long after, int limit);
+
     User create(User user);
 
     User update(User user);
 
+    /**
+     * Stores users that were already validated, in one operation. Ids are assigned in one block
+     * and imported users start without friends.
+     */
+    void importUsers(List<User> users);
+
     User addFriend(Long userId, Long friendId);
 
     void deleteFriend(Long userId, Long friendId);
 
+    /**
+     * Adds and removes friendships in bulk; the status at each index describes the change at that index.
+     */
+    List<BatchStatus> applyFriendships(List<FriendshipChange> changes);
+
     List<User> getFriends(Long userId);
 
     List<User> getCommonFriends(Long userId, Long friendId);
 
+    /**
+     * Returns up to {@code count} friends of the user's friends who are not the user's friends yet,
+     * most mutual friends first.
+     */
+    List<User> getFriendSuggestions(Long userId, int count);
+
     Optional<User> findUserById(Long userId);
+
+    /**
+     * Returns the ids from {@code ids} that belong to existing users.
+     */
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Counts are computed on every call and may walk the whole storage; they are meant for
+     * metrics scrapes, not for request handling.
+     */
+    long countUsers();
+
+    /**
+     * Counts mutual friendships, each one once.
+     */
+    long countFriendships();
 }
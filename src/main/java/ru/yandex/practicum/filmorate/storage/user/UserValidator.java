@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.RateLimitedLog;
+import ru.yandex.practicum.filmorate.storage.Today;
+
+/**
+ * User checks shared by the storage implementations and the bulk import. This is the only
+ * place users are validated: create, update and import all apply the same rules.
+ */
+@Slf4j
+public final class UserValidator {
+    private static final RateLimitedLog REJECTIONS = new RateLimitedLog(log, 10);
+    // characters allowed in the local part besides letters, digits and dots, as in RFC 5322 atoms
+    private static final String LOCAL_PART_SYMBOLS = "!#$%&'*+/=?^_`{|}~-";
+
+    private UserValidator() {
+    }
+
+    public static void validate(User user) {
+        String error = firstError(user);
+        if (error != null) {
+            REJECTIONS.warn("rejected: {}", error);
+            throw new ValidationException(error);
+        }
+        if (user.getName() == null) {
+            log.info("username is empty will use login as a username");
+            user.setName(user.getLogin());
+        }
+    }
+
+    /**
+     * Returns the message of the first rule {@code user} breaks, or {@code null} if it is valid.
+     * Messages are constants, so checking a valid user allocates nothing.
+     */
+    public static String firstError(User user) {
+        if (user.getEmail() == null || user.getEmail().indexOf('@') < 0) {
+            return "email is empty or doesn't have @";
+        }
+        if (!isEmailAddress(user.getEmail())) {
+            return "email is not a valid address";
+        }
+        if (user.getLogin() == null || user.getLogin().isEmpty() || user.getLogin().indexOf(' ') >= 0) {
+            return "login is empty or contains spaces";
+        }
+        if (user.getBirthday() != null && user.getBirthday().isAfter(Today.get())) {
+            return "date of birth is after current date";
+        }
+        if (user.getBirthday() != null && user.getBirthday().isEqual(Today.get())) {
+            return "date of birth must be in the past";
+        }
+        return null;
+    }
+
+    /**
+     * The address rules of Bean Validation's {@code @Email}, without the regex: a local part
+     * of letters, digits, dots and RFC 5322 symbols, one {@code @}, and a domain of
+     * dot-separated labels of letters, digits and hyphens. Dots may not lead, trail or repeat.
+     */
+    private static boolean isEmailAddress(String email) {
+        int at = email.indexOf('@');
+        if (at == 0 || at != email.lastIndexOf('@') || at == email.length() - 1) {
+            return false;
+        }
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (i == at) {
+                continue;
+            }
+            if (c == '.') {
+                if (i == 0 || i == at - 1 || i == at + 1 || i == email.length() - 1 || email.charAt(i - 1) == '.') {
+                    return false;
+                }
+            } else if (!Character.isLetterOrDigit(c) && (i > at ? c != '-' : LOCAL_PART_SYMBOLS.indexOf(c) < 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
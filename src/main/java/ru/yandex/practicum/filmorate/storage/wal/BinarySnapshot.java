@@ -0,0 +1,407 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * Binary snapshot of both storages, written and read through memory-mapped files.
+ * Layout: header, fixed-width film records, fixed-width user records, the packed like
+ * and friend ids the records point into, the time of every like, then the string table.
+ * Records refer to strings by index, so a value repeated across entities is stored and
+ * loaded once. Loading maps the file and restores films and users in parallel chunks.
+ * Version 1 snapshots, written before like times were kept, are read with unknown times.
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x464D534E;
+    private static final int VERSION = 2;
+    private static final int UNTIMED_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 * 5;
+    private static final int UNTIMED_HEADER_BYTES = 4 + 4 + 8 * 4;
+    private static final int FILM_BYTES = 8 + 4 + 4 + 8 + 4 + 8 + 4;
+    private static final int USER_BYTES = 8 + 4 + 4 + 4 + 8 + 8 + 4;
+    private static final long WINDOW_BYTES = 64L << 20;
+    private static final int RECORDS_PER_CHUNK = 64 * 1024;
+    private static final int NO_STRING = -1;
+    private static final int NO_DURATION = Integer.MIN_VALUE;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Time of a like in epoch millis, 0 if it is not known.
+     */
+    @FunctionalInterface
+    public interface LikeTimeSource {
+        LikeTimeSource UNKNOWN = (filmId, userId) -> 0;
+
+        long likedAt(long filmId, long userId);
+    }
+
+    /**
+     * Receives a film with the time of each like in the order of its like ids.
+     */
+    @FunctionalInterface
+    public interface TimedFilmConsumer {
+        void accept(Film film, long[] likedAt);
+    }
+
+    public static void write(Path path, Collection<Film> films, Collection<User> users,
+                             LikeTimeSource likeTimes) throws IOException {
+        List<Film> filmList = List.copyOf(films);
+        List<User> userList = List.copyOf(users);
+        StringTable strings = new StringTable();
+        long[][] likes = new long[filmList.size()][];
+        long[][] friends = new long[userList.size()][];
+        long edges = 0;
+        for (int i = 0; i < filmList.size(); i++) {
+            Film film = filmList.get(i);
+            strings.add(film.getName());
+            strings.add(film.getDescription());
+            likes[i] = ids(film.getLikes());
+            edges += likes[i].length;
+        }
+        // likes come first in the edge section, so a film's edge offset also indexes its like times
+        long likeEdges = edges;
+        for (int i = 0; i < userList.size(); i++) {
+            User user = userList.get(i);
+            strings.add(user.getEmail());
+            strings.add(user.getLogin());
+            strings.add(user.getName());
+            friends[i] = ids(user.getFriends());
+            edges += friends[i].length;
+        }
+        long size = HEADER_BYTES + (long) filmList.size() * FILM_BYTES + (long) userList.size() * USER_BYTES
+                + (edges + likeEdges) * Long.BYTES + strings.bytes();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedOutput out = new MappedOutput(channel, size);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(filmList.size());
+            out.putLong(userList.size());
+            out.putLong(edges);
+            out.putLong(likeEdges);
+            out.putLong(strings.size());
+            long edgeOffset = 0;
+            for (int i = 0; i < filmList.size(); i++) {
+                Film film = filmList.get(i);
+                out.putLong(film.getId());
+                out.putInt(strings.indexOf(film.getName()));
+                out.putInt(strings.indexOf(film.getDescription()));
+                out.putLong(film.getReleaseDate() == null ? NO_DATE : film.getReleaseDate().toEpochDay());
+                out.putInt(film.getDuration() == null ? NO_DURATION : film.getDuration());
+                out.putLong(edgeOffset);
+                out.putInt(likes[i].length);
+                edgeOffset += likes[i].length;
+            }
+            for (int i = 0; i < userList.size(); i++) {
+                User user = userList.get(i);
+                out.putLong(user.getId());
+                out.putInt(strings.indexOf(user.getEmail()));
+                out.putInt(strings.indexOf(user.getLogin()));
+                out.putInt(strings.indexOf(user.getName()));
+                out.putLong(user.getBirthday() == null ? NO_DATE : user.getBirthday().toEpochDay());
+                out.putLong(edgeOffset);
+                out.putInt(friends[i].length);
+                edgeOffset += friends[i].length;
+            }
+            for (long[] ids : likes) {
+                out.putLongs(ids);
+            }
+            for (long[] ids : friends) {
+                out.putLongs(ids);
+            }
+            for (int i = 0; i < filmList.size(); i++) {
+                long filmId = filmList.get(i).getId();
+                for (long userId : likes[i]) {
+                    out.putLong(likeTimes.likedAt(filmId, userId));
+                }
+            }
+            for (byte[] value : strings.values()) {
+                out.putInt(value.length);
+                out.put(value);
+            }
+            out.force();
+        }
+    }
+
+    public static void read(Path path, TimedFilmConsumer films, Consumer<User> users) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedInput header = new MappedInput(channel, 0, fileSize);
+            int version = header.getInt() == MAGIC ? header.getInt() : -1;
+            if (version != VERSION && version != UNTIMED_VERSION) {
+                throw new IOException("not a filmorate snapshot: " + path);
+            }
+            boolean timed = version == VERSION;
+            long filmCount = header.getLong();
+            long userCount = header.getLong();
+            long edgeCount = header.getLong();
+            long likeTimeCount = timed ? header.getLong() : 0;
+            long stringCount = header.getLong();
+            long filmsOffset = timed ? HEADER_BYTES : UNTIMED_HEADER_BYTES;
+            long usersOffset = filmsOffset + filmCount * FILM_BYTES;
+            long edgesOffset = usersOffset + userCount * USER_BYTES;
+            long likeTimesOffset = timed ? edgesOffset + edgeCount * Long.BYTES : -1;
+            long stringsOffset = edgesOffset + (edgeCount + likeTimeCount) * Long.BYTES;
+
+            String[] strings = new String[Math.toIntExact(stringCount)];
+            MappedInput stringInput = new MappedInput(channel, stringsOffset, fileSize);
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = new String(stringInput.getBytes(stringInput.getInt()), StandardCharsets.UTF_8);
+            }
+
+            chunks(filmCount).parallel().forEach(first -> readFilms(channel, fileSize, strings, filmsOffset,
+                    edgesOffset, likeTimesOffset, first, Math.min(filmCount, first + RECORDS_PER_CHUNK), films));
+            chunks(userCount).parallel().forEach(first -> readUsers(channel, fileSize, strings, usersOffset,
+                    edgesOffset, first, Math.min(userCount, first + RECORDS_PER_CHUNK), users));
+        }
+    }
+
+    private static void readFilms(FileChannel channel, long fileSize, String[] strings, long filmsOffset,
+                                  long edgesOffset, long likeTimesOffset, long from, long to,
+                                  TimedFilmConsumer films) {
+        try {
+            MappedInput records = new MappedInput(channel, filmsOffset + from * FILM_BYTES, fileSize);
+            MappedInput edges = null;
+            MappedInput times = null;
+            for (long i = from; i < to; i++) {
+                Film film = new Film();
+                film.setId(records.getLong());
+                film.setName(string(strings, records.getInt()));
+                film.setDescription(string(strings, records.getInt()));
+                film.setReleaseDate(date(records.getLong()));
+                int duration = records.getInt();
+                film.setDuration(duration == NO_DURATION ? null : duration);
+                long edgeOffset = records.getLong();
+                int likeCount = records.getInt();
+                if (edges == null) {
+                    edges = new MappedInput(channel, edgesOffset + edgeOffset * Long.BYTES, fileSize);
+                }
+                film.setLikes(edges.getIdSet(likeCount));
+                long[] likedAt = new long[likeCount];
+                if (likeTimesOffset >= 0) {
+                    if (times == null) {
+                        times = new MappedInput(channel, likeTimesOffset + edgeOffset * Long.BYTES, fileSize);
+                    }
+                    for (int like = 0; like < likeCount; like++) {
+                        likedAt[like] = times.getLong();
+                    }
+                }
+                films.accept(film, likedAt);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readUsers(FileChannel channel, long fileSize, String[] strings, long usersOffset,
+                                  long edgesOffset, long from, long to, Consumer<User> users) {
+        try {
+            MappedInput records = new MappedInput(channel, usersOffset + from * USER_BYTES, fileSize);
+            MappedInput edges = null;
+            for (long i = from; i < to; i++) {
+                User user = new User();
+                user.setId(records.getLong());
+                user.setEmail(string(strings, records.getInt()));
+                user.setLogin(string(strings, records.getInt()));
+                user.setName(string(strings, records.getInt()));
+                user.setBirthday(date(records.getLong()));
+                long edgeOffset = records.getLong();
+                int friendCount = records.getInt();
+                if (edges == null) {
+                    edges = new MappedInput(channel, edgesOffset + edgeOffset * Long.BYTES, fileSize);
+                }
+                user.setFriends(edges.getIdSet(friendCount));
+                users.accept(user);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LongStream chunks(long count) {
+        long chunkCount = (count + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK;
+        return LongStream.range(0, chunkCount).map(chunk -> chunk * RECORDS_PER_CHUNK);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static LocalDate date(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static long[] ids(Set<Long> ids) {
+        if (ids == null) {
+            return new long[0];
+        }
+        if (ids instanceof LongAdjacencySet adjacency) {
+            return adjacency.toLongArray();
+        }
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private long bytes;
+
+        void add(String value) {
+            if (value != null && !indexes.containsKey(value)) {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                indexes.put(value, values.size());
+                values.add(encoded);
+                bytes += Integer.BYTES + encoded.length;
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? NO_STRING : indexes.get(value);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        List<byte[]> values() {
+            return values;
+        }
+    }
+
+    /**
+     * Sequential writer over a file mapped window by window, so snapshots may exceed 2 GB.
+     */
+    private static final class MappedOutput {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long bufferStart;
+
+        MappedOutput(FileChannel channel, long size) throws IOException {
+            this.channel = channel;
+            this.size = size;
+            remap(0);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES).putLong(value);
+        }
+
+        void putLongs(long[] values) throws IOException {
+            for (long value : values) {
+                putLong(value);
+            }
+        }
+
+        void put(byte[] value) throws IOException {
+            int offset = 0;
+            while (offset < value.length) {
+                int chunk = Math.min(value.length - offset, Math.max(1, buffer.remaining()));
+                ensure(1).put(value, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        private MappedByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                buffer.force();
+                remap(bufferStart + buffer.position());
+            }
+            return buffer;
+        }
+
+        private void remap(long position) throws IOException {
+            bufferStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(WINDOW_BYTES, size - position));
+        }
+    }
+
+    /**
+     * Sequential reader over a file mapped window by window.
+     */
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long bufferStart;
+
+        MappedInput(FileChannel channel, long position, long size) throws IOException {
+            this.channel = channel;
+            this.size = size;
+            remap(position);
+        }
+
+        int getInt() throws IOException {
+            return ensure(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return ensure(Long.BYTES).getLong();
+        }
+
+        byte[] getBytes(int length) throws IOException {
+            byte[] value = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int chunk = Math.min(length - offset, Math.max(1, buffer.remaining()));
+                ensure(1).get(value, offset, chunk);
+                offset += chunk;
+            }
+            return value;
+        }
+
+        LongAdjacencySet getIdSet(int count) throws IOException {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = getLong();
+            }
+            return LongAdjacencySet.ofSorted(ids);
+        }
+
+        private MappedByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                remap(bufferStart + buffer.position());
+            }
+            return buffer;
+        }
+
+        private void remap(long position) throws IOException {
+            bufferStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rebuilds the in-memory storages on startup from the latest snapshot plus the write-ahead log,
+ * and takes a new snapshot whenever the log has grown by {@code snapshotEvery} records,
+ * so recovery time stays bounded.
+ */
+@Slf4j
+public class SnapshotManager {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final WriteAheadLog wal;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final Path snapshotPath;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotManager(WriteAheadLog wal, InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage,
+                           WalProperties properties) {
+        this.wal = wal;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.snapshotPath = Path.of(properties.getDirectory()).resolve(SNAPSHOT_FILE);
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long started = System.currentTimeMillis();
+        if (Files.exists(snapshotPath)) {
+            BinarySnapshot.read(snapshotPath, filmStorage::restore, userStorage::restore);
+        }
+        wal.replay(this::apply);
+        log.info("restored {} films and {} users in {} ms", filmStorage.getFilms().size(), userStorage.get().size(),
+                System.currentTimeMillis() - started);
+        wal.onSnapshotDue(() -> executor.execute(this::snapshot));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void snapshot() {
+        try {
+            long coveredSegment = wal.rotate();
+            Path tmp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+            BinarySnapshot.write(tmp, filmStorage.getFilms(), userStorage.get(), filmStorage::likedAt);
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            wal.deleteSegmentsUpTo(coveredSegment);
+            log.info("snapshot written, log segments up to {} dropped", coveredSegment);
+        } catch (IOException | RuntimeException e) {
+            log.error("snapshot failed, keeping the log segments", e);
+        }
+    }
+
+    private void apply(WalRecord record) {
+        try {
+            switch (record.type()) {
+                case FILM -> filmStorage.restore(record.film().toFilm());
+                case LIKE -> filmStorage.restoreLike(record.id(), record.otherId(), false, timeOf(record));
+                case UNLIKE -> filmStorage.restoreLike(record.id(), record.otherId(), true, timeOf(record));
+                case USER -> userStorage.restore(record.user().toUser());
+                case FRIEND -> userStorage.restoreFriendship(record.id(), record.otherId(), false);
+                case UNFRIEND -> userStorage.restoreFriendship(record.id(), record.otherId(), true);
+            }
+        } catch (NotFoundException e) {
+            log.warn("skipping {} record for a missing entity: {}", record.type(), e.getMessage());
+        }
+    }
+
+    /**
+     * Untimed likes from older logs are replayed as long past, so they don't count as trending.
+     */
+    private static long timeOf(WalRecord record) {
+        return record.at() == null ? 0 : record.at();
+    }
+}
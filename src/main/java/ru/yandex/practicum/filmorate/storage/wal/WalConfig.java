@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(WalProperties.class)
+@ConditionalOnProperty(name = "filmorate.wal.enabled", havingValue = "true")
+public class WalConfig {
+
+    @Bean
+    public WriteAheadLog writeAheadLog(WalProperties properties, ObjectMapper objectMapper) throws IOException {
+        return new WriteAheadLog(properties, objectMapper);
+    }
+
+    @Bean
+    public SnapshotManager snapshotManager(WriteAheadLog writeAheadLog, InMemoryFilmStorage filmStorage,
+                                           InMemoryUserStorage userStorage, WalProperties properties) {
+        return new SnapshotManager(writeAheadLog, filmStorage, userStorage, properties);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.wal")
+public class WalProperties {
+    /**
+     * Journal every change of the in-memory storages to disk and replay it on startup.
+     */
+    private boolean enabled;
+    private String directory = "data/wal";
+    /**
+     * Most records written with a single fsync.
+     */
+    private int maxBatch = 1024;
+    /**
+     * Records after which a snapshot is taken and older log segments are dropped.
+     */
+    private long snapshotEvery = 100_000;
+    /**
+     * Most records waiting for the writer; changes beyond it are refused until the writer catches up.
+     */
+    private int queueCapacity = 65_536;
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One line of the write-ahead log.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WalRecord(Type type, FilmFields film, UserFields user, Long id, Long otherId, Long at) {
+
+    public enum Type {
+        FILM, LIKE, UNLIKE, USER, FRIEND, UNFRIEND
+    }
+
+    static WalRecord film(Film film, boolean created) {
+        return new WalRecord(Type.FILM, FilmFields.of(film, created), null, null, null, null);
+    }
+
+    static WalRecord user(User user, boolean created) {
+        return new WalRecord(Type.USER, null, UserFields.of(user, created), null, null, null);
+    }
+
+    static WalRecord edge(Type type, long id, long otherId) {
+        return new WalRecord(type, null, null, id, otherId, null);
+    }
+
+    /**
+     * A like change with its time; records written before likes were timed have no {@code at}.
+     */
+    static WalRecord like(Type type, long filmId, long userId, long at) {
+        return new WalRecord(type, null, null, filmId, userId, at);
+    }
+
+    /**
+     * The fields of a saved film. Only a new film carries its likes: later likes have records
+     * of their own, so an update costs the same however many likes the film has.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record FilmFields(Long id, String name, String description, LocalDate releaseDate, Integer duration,
+                             Set<Long> likes) {
+
+        static FilmFields of(Film film, boolean created) {
+            return new FilmFields(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getDuration(), created ? film.getLikes() : null);
+        }
+
+        Film toFilm() {
+            Film film = new Film();
+            film.setId(id);
+            film.setName(name);
+            film.setDescription(description);
+            film.setReleaseDate(releaseDate);
+            film.setDuration(duration);
+            film.setLikes(likes == null ? new HashSet<>() : likes);
+            return film;
+        }
+    }
+
+    /**
+     * The fields of a saved user. Only a new user carries its friends, like {@link FilmFields}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record UserFields(Long id, String email, String login, String name, LocalDate birthday,
+                             Set<Long> friends) {
+
+        static UserFields of(User user, boolean created) {
+            return new UserFields(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(),
+                    created ? user.getFriends() : null);
+        }
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setEmail(email);
+            user.setLogin(login);
+            user.setName(name);
+            user.setBirthday(birthday);
+            user.setFriends(friends == null ? new HashSet<>() : friends);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exceptions.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of storage changes, split into numbered segment files.
+ * Callers hand their record to a single writer thread and get a future for it. The writer
+ * drains everything queued meanwhile, makes it durable with one fsync (group commit), so
+ * concurrent writers share the cost of syncing, and then runs the storages' apply actions
+ * and completes the futures in log order.
+ * A failed write fails every record after it too: the log stops taking changes rather than
+ * let a later change build on one that never reached the disk.
+ * The queue is bounded and a record that finds it full is refused at once. Waiting for room
+ * is no option: the caller may hold a stripe lock the writer needs to apply earlier records.
+ */
+@Slf4j
+public class WriteAheadLog implements StorageJournal, Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int maxBatch;
+    private final long snapshotEvery;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+    private final long firstSegment;
+    private volatile boolean replaying;
+    private volatile boolean closed;
+    private volatile Exception failure;
+    private volatile Runnable snapshotTrigger = () -> {
+    };
+
+    // touched by the writer thread only
+    private FileChannel channel;
+    private long segment;
+    private long recordsSinceRotation;
+    private boolean snapshotRequested;
+
+    public WriteAheadLog(WalProperties properties, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(properties.getDirectory());
+        this.maxBatch = properties.getMaxBatch();
+        this.snapshotEvery = properties.getSnapshotEvery();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Files.createDirectories(directory);
+        List<Long> existing = segments();
+        this.firstSegment = existing.isEmpty() ? 1 : existing.getLast() + 1;
+        this.segment = firstSegment;
+        this.channel = open(segment);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> filmSaved(Film film, boolean created, Supplier<T> apply) {
+        return append(WalRecord.film(film, created), apply);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> likeAdded(long filmId, long userId, long at, Supplier<T> apply) {
+        return append(WalRecord.like(WalRecord.Type.LIKE, filmId, userId, at), apply);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> likeRemoved(long filmId, long userId, long at, Supplier<T> apply) {
+        return append(WalRecord.like(WalRecord.Type.UNLIKE, filmId, userId, at), apply);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> userSaved(User user, boolean created, Supplier<T> apply) {
+        return append(WalRecord.user(user, created), apply);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> friendAdded(long userId, long friendId, Supplier<T> apply) {
+        return append(WalRecord.edge(WalRecord.Type.FRIEND, userId, friendId), apply);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> friendRemoved(long userId, long friendId, Supplier<T> apply) {
+        return append(WalRecord.edge(WalRecord.Type.UNFRIEND, userId, friendId), apply);
+    }
+
+    /**
+     * Called on the writer thread once {@code snapshotEvery} records were written since the last rotation.
+     * Must not block.
+     */
+    public void onSnapshotDue(Runnable trigger) {
+        this.snapshotTrigger = trigger;
+    }
+
+    /**
+     * Feeds every record written before this process started to {@code consumer}, oldest first.
+     * Changes made by the consumer are not journaled again.
+     */
+    public void replay(Consumer<WalRecord> consumer) throws IOException {
+        replaying = true;
+        try {
+            for (long number : segments()) {
+                if (number >= firstSegment) {
+                    break;
+                }
+                replaySegment(segmentPath(number), consumer);
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * Starts a new segment after everything queued so far and returns the number of the closed one.
+     */
+    public long rotate() {
+        CompletableFuture<Long> rotated = new CompletableFuture<>();
+        enqueue(new PendingWrite(null, new CompletableFuture<>(), rotated));
+        return rotated.join();
+    }
+
+    /**
+     * Deletes segments up to and including {@code lastSegment}, once a snapshot covers them.
+     */
+    public void deleteSegmentsUpTo(long lastSegment) throws IOException {
+        for (long number : segments()) {
+            if (number <= lastSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private <T> CompletableFuture<T> append(WalRecord record, Supplier<T> apply) {
+        if (replaying) {
+            return CompletableFuture.completedFuture(apply.get());
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize write-ahead log record " + record.type(), e);
+        }
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        PendingWrite write = new PendingWrite(line, new CompletableFuture<>(), null);
+        // chained before the record is queued, so the writer applies changes in log order
+        CompletableFuture<T> applied = write.done().thenApply(written -> apply.get());
+        try {
+            enqueue(write);
+        } catch (IllegalStateException | OverloadedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return applied;
+    }
+
+    private void enqueue(PendingWrite write) {
+        if (closed) {
+            throw new IllegalStateException("write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("write-ahead log stopped after a failed write", failure);
+        }
+        if (!queue.offer(write)) {
+            throw new OverloadedException("too many changes waiting to be written, try again later");
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        int from = 0;
+        try {
+            if (failure != null) {
+                throw new IOException("write-ahead log stopped after a failed write", failure);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).line() == null) {
+                    sync(batch, from, i);
+                    long closedSegment = segment;
+                    channel.close();
+                    channel = open(++segment);
+                    recordsSinceRotation = 0;
+                    snapshotRequested = false;
+                    batch.get(i).rotated().complete(closedSegment);
+                    from = i + 1;
+                }
+            }
+            sync(batch, from, batch.size());
+        } catch (IOException | RuntimeException e) {
+            if (failure == null) {
+                log.error("write-ahead log write failed, no further changes are accepted", e);
+                failure = e;
+            }
+            for (int i = from; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                (write.line() == null ? write.rotated() : write.done()).completeExceptionally(e);
+            }
+        }
+    }
+
+    private void sync(List<PendingWrite> batch, int from, int to) throws IOException {
+        if (from == to) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[to - from];
+        for (int i = from; i < to; i++) {
+            buffers[i - from] = ByteBuffer.wrap(batch.get(i).line());
+        }
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        channel.force(false);
+        for (int i = from; i < to; i++) {
+            batch.get(i).done().complete(null);
+        }
+        recordsSinceRotation += to - from;
+        if (recordsSinceRotation >= snapshotEvery && !snapshotRequested) {
+            snapshotRequested = true;
+            snapshotTrigger.run();
+        }
+    }
+
+    private void replaySegment(Path path, Consumer<WalRecord> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                WalRecord record;
+                try {
+                    record = objectMapper.readValue(line, WalRecord.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("skipping unreadable record {} of {}, most likely a torn write", lineNumber, path);
+                    continue;
+                }
+                consumer.accept(record);
+            }
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * A record to append, or a rotation when {@code line} is null.
+     */
+    private record PendingWrite(byte[] line, CompletableFuture<Void> done, CompletableFuture<Long> rotated) {
+    }
+}
@@ -0,0 +1,40 @@
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INTEGER
+);
+
+-- filtered listings narrow by release date or duration ranges
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+CREATE INDEX IF NOT EXISTS films_duration_idx ON films (duration);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id  BIGINT    NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id  BIGINT    NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    liked_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL,
+    PRIMARY KEY (film_id, user_id)
+);
+
+-- the primary key already serves lookups by film_id, these cover the other side
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+-- trending films only read the likes of the last window
+CREATE INDEX IF NOT EXISTS likes_liked_at_idx ON likes (liked_at);
+
+-- a friendship is stored once per direction, so (user_id, friend_id) is the lookup key
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_id_idx ON friendships (friend_id);
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ConcurrentStorageTests {
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+    private static final int USERS = 200;
+    private static final int FILMS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @BeforeEach
+    public void init() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < USERS; i++) {
+            userStorage.create(TestData.newUser("login" + i));
+        }
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.createFilms(TestData.newFilm("film " + i));
+        }
+    }
+
+    @Test
+    public void mixedReadsAndWritesDontCorruptStorage() throws Exception {
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                long filmId = random.nextLong(1, FILMS + 1);
+                long userId = random.nextLong(1, USERS + 1);
+                long otherId = random.nextLong(1, USERS + 1);
+                switch (random.nextInt(8)) {
+                    case 0 -> filmStorage.addLike(filmId, userId);
+                    case 1 -> filmStorage.deleteLike(filmId, userId);
+                    case 2 -> filmStorage.getTopTen(10);
+                    case 3 -> objectMapper.writeValueAsString(filmStorage.getFilms());
+                    case 4 -> userStorage.addFriend(userId, otherId);
+                    case 5 -> userStorage.deleteFriend(userId, otherId);
+                    case 6 -> userStorage.getCommonFriends(userId, otherId);
+                    default -> objectMapper.writeValueAsString(userStorage.get());
+                }
+            }
+            return null;
+        });
+
+        List<Film> ranking = filmStorage.getTopTen(FILMS);
+        Assertions.assertEquals(FILMS, ranking.size());
+        for (int i = 1; i < ranking.size(); i++) {
+            Assertions.assertTrue(ranking.get(i - 1).getLikes().size() >= ranking.get(i).getLikes().size());
+        }
+    }
+
+    @Test
+    public void concurrentCreatesAndFriendshipsAreNotLost() throws Exception {
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD / 10; i++) {
+                User user = userStorage.create(TestData.newUser("login" + i));
+                userStorage.addFriend(user.getId(), 1L);
+                filmStorage.addLike(filmStorage.createFilms(TestData.newFilm("film " + i)).getId(), user.getId());
+            }
+            return null;
+        });
+
+        int created = THREADS * (OPERATIONS_PER_THREAD / 10);
+        Assertions.assertEquals(USERS + created, userStorage.get().size());
+        Assertions.assertEquals(FILMS + created, filmStorage.getFilms().size());
+        Assertions.assertEquals(created, userStorage.getFriends(1L).size());
+        Assertions.assertTrue(filmStorage.getTopTen(created).stream()
+                .allMatch(film -> film.getLikes().size() == 1));
+    }
+
+    @Test
+    public void publishedVersionsCannotBeChanged() {
+        Film film = filmStorage.findFilmById(1L).orElseThrow();
+        User user = userStorage.findUserById(1L).orElseThrow();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> film.setName("changed"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> film.setLikes(new HashSet<>()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> film.getLikes().add(1L));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> user.setFriends(new HashSet<>()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> user.setEmail("changed@mail.com"));
+
+        Film update = TestData.newFilm("film 0");
+        update.setId(film.getId());
+        update.setName("changed");
+        filmStorage.updateFilms(update);
+        Assertions.assertEquals("film 0", film.getName());
+        Assertions.assertEquals("changed", filmStorage.findFilmById(1L).orElseThrow().getName());
+    }
+
+    private void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ErrorHandler;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+
+public class ErrorHandlerTests {
+    private final ErrorHandler errorHandler = new ErrorHandler();
+
+    @Test
+    public void clientErrorsCarryTheirReasonAndShareBodies() {
+        ErrorResponse notFound = errorHandler.handleNotFoundException(new NotFoundException("there is no such film"));
+        Assertions.assertEquals("there is no such film", notFound.getDescription());
+        Assertions.assertSame(notFound,
+                errorHandler.handleNotFoundException(new NotFoundException("there is no such film")));
+        Assertions.assertEquals("release date is not valid", errorHandler
+                .handleValidationException(new ValidationException("release date is not valid"))
+                .getDescription());
+    }
+
+    @Test
+    public void clientErrorsHaveNoStackTrace() {
+        Assertions.assertEquals(0, new NotFoundException("there is no such film").getStackTrace().length);
+        Assertions.assertEquals(0, new ValidationException("film name cannot be empty").getStackTrace().length);
+    }
+
+    @Test
+    public void internalErrorsDontLeakDetails() {
+        Assertions.assertEquals("Internal Server Error",
+                errorHandler.handleOtherErrors(new IllegalStateException("secret")).getDescription());
+    }
+}
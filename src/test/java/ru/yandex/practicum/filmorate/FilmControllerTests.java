@@ -1,13 +1,17 @@
 package ru.yandex.practicum.filmorate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.controller.FilmController;
 import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
@@ -16,8 +20,10 @@ import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.List;
 
 public class FilmControllerTests {
 
@@ -37,12 +43,14 @@ public class FilmControllerTests {
 
     @BeforeEach
     public void init() {
-        userStorage = new InMemoryUserStorage(new HashMap<>());
+        userStorage = new InMemoryUserStorage();
         userService = new UserService(userStorage);
-        userController = new UserController(userService);
+        userController = new UserController(userService,
+                new JsonFragments(new ObjectMapper().findAndRegisterModules(), 100));
         filmStorage = new InMemoryFilmStorage();
         filmService = new FilmService(filmStorage, userStorage);
-        filmController = new FilmController(filmService);
+        filmController = new FilmController(filmService,
+                new JsonFragments(new ObjectMapper().findAndRegisterModules(), 100));
 
         user = new User();
         user.setName("name");
@@ -79,7 +87,7 @@ public class FilmControllerTests {
         Assertions.assertEquals(film.getDescription(), createdFilm.getDescription());
         Assertions.assertEquals(film.getDuration(), createdFilm.getDuration());
         Assertions.assertEquals(film.getReleaseDate(), createdFilm.getReleaseDate());
-        Assertions.assertEquals(1, filmController.get().size());
+        Assertions.assertEquals(1, filmController.get(null, null, false, null, null, null, null).size());
     }
 
     @Test
@@ -131,16 +139,16 @@ public class FilmControllerTests {
         Assertions.assertEquals(film2.getDescription(), updatedFilm.getDescription());
         Assertions.assertEquals(film.getDuration(), updatedFilm.getDuration());
         Assertions.assertEquals(film.getReleaseDate(), updatedFilm.getReleaseDate());
-        Assertions.assertEquals(1, filmController.get().size());
+        Assertions.assertEquals(1, filmController.get(null, null, false, null, null, null, null).size());
     }
 
     @Test
     public void filmGetContainsRightObjects() {
         filmController.create(film);
         filmController.create(film2);
-        Assertions.assertTrue(filmController.get().contains(film));
-        Assertions.assertTrue(filmController.get().contains(film2));
-        Assertions.assertEquals(2, filmController.get().size());
+        Assertions.assertTrue(filmController.get(null, null, false, null, null, null, null).contains(film));
+        Assertions.assertTrue(filmController.get(null, null, false, null, null, null, null).contains(film2));
+        Assertions.assertEquals(2, filmController.get(null, null, false, null, null, null, null).size());
 
     }
 
@@ -149,7 +157,7 @@ public class FilmControllerTests {
         filmController.create(film);
         userController.create(user);
         filmController.addLike(film.getId(), user.getId());
-        Assertions.assertTrue(film.getLikes().contains(user.getId()));
+        Assertions.assertTrue(stored(film).getLikes().contains(user.getId()));
     }
 
     @Test
@@ -157,9 +165,9 @@ public class FilmControllerTests {
         filmController.create(film);
         userController.create(user);
         filmController.addLike(film.getId(), user.getId());
-        Assertions.assertTrue(film.getLikes().contains(user.getId()));
+        Assertions.assertTrue(stored(film).getLikes().contains(user.getId()));
         filmController.deleteLike(film.getId(), user.getId());
-        Assertions.assertTrue(film.getLikes().isEmpty());
+        Assertions.assertTrue(stored(film).getLikes().isEmpty());
     }
 
     @Test
@@ -173,7 +181,113 @@ public class FilmControllerTests {
         filmController.addLike(film.getId(), user.getId());
         filmController.addLike(film2.getId(), user.getId());
         filmController.addLike(film3.getId(), user.getId());
-        Assertions.assertEquals(3, filmController.firstTen(3).size());
-        Assertions.assertTrue(filmController.firstTen(3).contains(film));
+        Assertions.assertEquals(3, filmController.firstTen(3, false).size());
+        Assertions.assertTrue(filmController.firstTen(3, false).contains(stored(film)));
+    }
+
+    @Test
+    public void popularFilmsAreOrderedByLikes() {
+        User secondUser = new User();
+        secondUser.setName("name2");
+        secondUser.setLogin("login2");
+        secondUser.setEmail("mail2@mail.com");
+        secondUser.setBirthday(LocalDate.of(1991, 1, 1));
+        userController.create(user);
+        userController.create(secondUser);
+        filmController.create(film);
+        filmController.create(film2);
+        filmController.create(film3);
+
+        filmController.addLike(film2.getId(), user.getId());
+        filmController.addLike(film2.getId(), secondUser.getId());
+        filmController.addLike(film3.getId(), user.getId());
+        Assertions.assertEquals(List.of(stored(film2), stored(film3), stored(film)), filmController.firstTen(10, false));
+
+        filmController.deleteLike(film2.getId(), user.getId());
+        filmController.deleteLike(film2.getId(), secondUser.getId());
+        Assertions.assertEquals(List.of(stored(film3), stored(film)), filmController.firstTen(2, false));
+    }
+
+    @Test
+    public void trendingFilmsAreRankedByRecentLikes() {
+        userController.create(user);
+        filmController.create(film);
+        filmController.create(film2);
+        filmController.addLike(film2.getId(), user.getId());
+
+        Assertions.assertEquals(List.of(stored(film2)), filmController.trending("1h", 10, false));
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> filmController.trending("2h", 10, false));
+        Assertions.assertEquals("window must be one of 1h, 24h, 7d", exception.getMessage());
+    }
+
+    @Test
+    public void filmsAreFilteredByReleaseDateAndDuration() {
+        filmController.create(film);
+        filmController.create(film2);
+        filmController.create(film3);
+
+        Assertions.assertEquals(List.of(film2, film3), filmController.get(null, null, false,
+                LocalDate.of(2021, 1, 1), null, 90, 90));
+        Assertions.assertEquals(List.of(film3), filmController.get(film2.getId(), 1, false,
+                LocalDate.of(2021, 1, 1), null, null, null));
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> filmController.get(null, null, false, null, null, 100, 90));
+        Assertions.assertEquals("minDuration must not be greater than maxDuration", exception.getMessage());
+    }
+
+    @Test
+    public void filmsAreSearchedByNameAndDescription() {
+        filmController.create(film);
+        filmController.create(film2);
+
+        Assertions.assertEquals(List.of(stored(film), stored(film2)), filmController.search("Jackass comedy", null, false));
+        Assertions.assertEquals(List.of(stored(film2)), filmController.search("comedy2", null, false));
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> filmController.search(" ", null, false));
+        Assertions.assertEquals("search query is empty", exception.getMessage());
+        Assertions.assertThrows(ValidationException.class, () -> filmController.search("jackass", 0, false));
+    }
+
+    @Test
+    public void filmsArePagedAndStreamedById() throws Exception {
+        filmController.create(film);
+        filmController.create(film2);
+        filmController.create(film3);
+
+        Assertions.assertEquals(List.of(film, film2), filmController.get(null, 2, false, null, null, null, null));
+        Assertions.assertEquals(List.of(film3), filmController.get(film2.getId(), 2, false, null, null, null, null));
+        Assertions.assertThrows(ValidationException.class, () -> filmController.get(null, 0, false, null, null, null, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filmController.stream(film.getId(), false, null, null, null, null).getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].contains("\"name\":\"jackass 2d\""));
+    }
+
+    @Test
+    public void likesAreAppliedInBulkWithPerItemStatus() {
+        User createdUser = userController.create(user);
+        Film createdFilm = filmController.create(film);
+        Film createdFilm2 = filmController.create(film2);
+
+        List<BatchStatus> results = filmController.applyLikes(List.of(
+                new LikeChange(createdFilm.getId(), createdUser.getId(), false),
+                new LikeChange(createdFilm2.getId(), createdUser.getId(), false),
+                new LikeChange(createdFilm2.getId(), createdUser.getId(), false),
+                new LikeChange(createdFilm.getId(), 999L, false),
+                new LikeChange(999L, createdUser.getId(), false),
+                new LikeChange(createdFilm.getId(), createdUser.getId(), true)));
+
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.APPLIED, BatchStatus.UNCHANGED,
+                BatchStatus.NOT_FOUND, BatchStatus.NOT_FOUND, BatchStatus.APPLIED), results);
+        Assertions.assertEquals(List.of(createdFilm2.getId(), createdFilm.getId()), filmController.firstTen(2, false).stream()
+                .map(Film::getId)
+                .toList());
+    }
+
+    private Film stored(Film film) {
+        return filmStorage.findFilmById(film.getId()).orElseThrow();
     }
 }
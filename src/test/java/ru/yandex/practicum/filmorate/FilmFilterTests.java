@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FilmFilterTests {
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+    @Test
+    public void filtersAreCombinedAndPagedById() {
+        long old = newFilm(LocalDate.of(1990, 5, 1), 120);
+        long shortNew = newFilm(LocalDate.of(2010, 1, 1), 80);
+        long longNew = newFilm(LocalDate.of(2015, 6, 30), 150);
+        long longNewer = newFilm(LocalDate.of(2020, 12, 31), 180);
+
+        FilmFilter since2000 = new FilmFilter(LocalDate.of(2000, 1, 1), null, null, null);
+        Assertions.assertEquals(List.of(shortNew, longNew, longNewer), ids(storage.getFilms(since2000, null, 10)));
+        FilmFilter longSince2000 = new FilmFilter(LocalDate.of(2000, 1, 1), null, 100, null);
+        Assertions.assertEquals(List.of(longNew), ids(storage.getFilms(longSince2000, null, 1)));
+        Assertions.assertEquals(List.of(longNewer), ids(storage.getFilms(longSince2000, longNew, 1)));
+        Assertions.assertEquals(List.of(), ids(storage.getFilms(longSince2000, longNewer, 1)));
+        FilmFilter bounds = new FilmFilter(LocalDate.of(1990, 5, 1), LocalDate.of(2015, 6, 30), 80, 150);
+        Assertions.assertEquals(List.of(old, shortNew, longNew), ids(storage.getFilms(bounds, null, 10)));
+    }
+
+    @Test
+    public void updatedFilmsMoveBetweenRanges() {
+        long film = newFilm(LocalDate.of(2000, 1, 1), 90);
+        Film update = new Film();
+        update.setId(film);
+        update.setDuration(200);
+        storage.updateFilms(update);
+
+        Assertions.assertEquals(List.of(), ids(storage.getFilms(new FilmFilter(null, null, null, 100), null, 10)));
+        Assertions.assertEquals(List.of(film), ids(storage.getFilms(new FilmFilter(null, null, 150, null), null, 10)));
+        Assertions.assertEquals(List.of(film),
+                ids(storage.getFilms(new FilmFilter(null, LocalDate.of(2000, 1, 1), 150, null), null, 10)));
+    }
+
+    @Test
+    public void pagesMatchAScanOfTenThousandFilms() {
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            newFilm(LocalDate.of(1900, 1, 1).plusDays(random.nextInt(45_000)), 1 + random.nextInt(240));
+        }
+        List<Film> films = new ArrayList<>(storage.getFilms());
+        List<FilmFilter> filters = List.of(
+                new FilmFilter(LocalDate.of(1990, 1, 1), LocalDate.of(1999, 12, 31), null, null),
+                new FilmFilter(null, null, 90, 120),
+                new FilmFilter(LocalDate.of(2000, 1, 1), null, null, 60),
+                new FilmFilter(LocalDate.of(1950, 1, 1), LocalDate.of(1950, 12, 31), 100, 100),
+                new FilmFilter(LocalDate.of(1950, 3, 15), LocalDate.of(1951, 2, 1), null, null),
+                new FilmFilter(LocalDate.of(1900, 1, 1), null, 10, null),
+                new FilmFilter(LocalDate.of(1960, 1, 1), null, 60, 200),
+                new FilmFilter(null, LocalDate.of(1905, 6, 1), 239, null));
+        for (FilmFilter filter : filters) {
+            List<Long> expected = films.stream().filter(filter::matches).map(Film::getId).toList();
+            List<Long> paged = new ArrayList<>();
+            List<Film> page;
+            Long after = null;
+            do {
+                page = storage.getFilms(filter, after, 100);
+                paged.addAll(ids(page));
+                after = page.isEmpty() ? after : page.getLast().getId();
+            } while (page.size() == 100);
+            Assertions.assertEquals(expected, paged, filter.toString());
+        }
+    }
+
+    private long newFilm(LocalDate releaseDate, int duration) {
+        Film film = TestData.newFilm("film");
+        film.setDuration(duration);
+        film.setReleaseDate(releaseDate);
+        return storage.createFilms(film).getId();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
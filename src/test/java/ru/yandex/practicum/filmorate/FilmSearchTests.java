@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class FilmSearchTests {
+    private static final String[] WORDS = {"star", "stars", "start", "war", "wars", "dark", "knight", "night",
+            "space", "odyssey", "return", "empire", "king", "kingdom", "ring", "rings", "lord", "alien"};
+
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+    @Test
+    public void filmsMatchingAllWordsAreRankedByWhereTheyMatch() {
+        long inName = newFilm("Star Wars", "A space opera");
+        long prefixInName = newFilm("Starship Troopers", "Bugs in space");
+        long inDescription = newFilm("Alien", "Space horror, the star is a cat");
+        long prefixInDescription = newFilm("Sunshine", "Starlight, space and a crew");
+        newFilm("Star Trek", "Nothing of interest");
+
+        Assertions.assertEquals(List.of(inName, prefixInName, inDescription, prefixInDescription),
+                ids(storage.searchFilms("star SPACE", 10)));
+        Assertions.assertEquals(List.of(inName, prefixInName), ids(storage.searchFilms("star, space!", 2)));
+        Assertions.assertEquals(List.of(), ids(storage.searchFilms("star wars trek", 10)));
+        Assertions.assertEquals(List.of(), ids(storage.searchFilms(" ,.! ", 10)));
+    }
+
+    @Test
+    public void shortWordsMatchWholeWordsAndLongerPrefixesMatchEveryWord() {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(newFilm("alpha" + i, "description"));
+        }
+        long shortWord = newFilm("al", "description");
+
+        Assertions.assertEquals(expected, ids(storage.searchFilms("alp", 1_000)));
+        Assertions.assertEquals(List.of(shortWord), ids(storage.searchFilms("al", 1_000)));
+    }
+
+    @Test
+    public void commonPrefixesAreBoundedInAHundredThousandFilms() {
+        for (int i = 0; i < 100_000; i++) {
+            newFilm("star" + i, "the film");
+        }
+        long exact = newFilm("sta", "the film");
+        long wars = newFilm("star wars", "the film");
+
+        // whole words rank first even when the prefix expands to a hundred thousand words
+        Assertions.assertEquals(exact, ids(storage.searchFilms("sta", 10)).getFirst());
+        Assertions.assertEquals(10, storage.searchFilms("sta", 10).size());
+        Assertions.assertEquals(List.of(wars), ids(storage.searchFilms("star wars", 10)));
+        // a word in every description keeps the lowest ids
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids(storage.searchFilms("the", 3)));
+        Assertions.assertEquals(List.of(1L, 2L, 3L), ids(storage.searchFilms("the film", 3)));
+        // the rarer word picks the candidates, so the common one loses nothing
+        Assertions.assertEquals(List.of(wars), ids(storage.searchFilms("the wars", 3)));
+    }
+
+    @Test
+    public void updatedTextIsReindexed() {
+        long film = newFilm("Old title", "Kept description");
+        Film update = new Film();
+        update.setId(film);
+        update.setName("New title");
+        storage.updateFilms(update);
+
+        Assertions.assertEquals(List.of(), ids(storage.searchFilms("old title", 10)));
+        Assertions.assertEquals(List.of(film), ids(storage.searchFilms("new title", 10)));
+        Assertions.assertEquals(List.of(film), ids(storage.searchFilms("kept description", 10)));
+    }
+
+    @Test
+    public void resultsMatchAScanOfTenThousandFilms() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            newFilm(phrase(random, 1 + random.nextInt(3)), phrase(random, 2 + random.nextInt(6)));
+        }
+        List<Film> films = new ArrayList<>(storage.getFilms());
+        for (String query : List.of("star", "sta wars", "king ring", "night dark", "lord of the", "e", "kin ri")) {
+            List<String> words = List.of(query.split(" "));
+            List<Long> expected = films.stream()
+                    .filter(film -> words.stream().allMatch(word -> score(film, word) > 0))
+                    .sorted(Comparator.comparingInt((Film film) -> words.stream().mapToInt(word -> score(film, word)).sum())
+                            .reversed()
+                            .thenComparing(Film::getId))
+                    .limit(50)
+                    .map(Film::getId)
+                    .toList();
+            Assertions.assertEquals(expected, ids(storage.searchFilms(query, 50)), query);
+        }
+    }
+
+    private static int score(Film film, String word) {
+        int inName = score(film.getName(), word, 4);
+        return inName > 0 ? inName : score(film.getDescription(), word, 2);
+    }
+
+    private static int score(String text, String word, int wholeWord) {
+        int best = 0;
+        for (String token : text.toLowerCase(Locale.ROOT).split(" ")) {
+            if (token.equals(word)) {
+                return wholeWord;
+            }
+            if (word.length() >= 3 && token.startsWith(word)) {
+                best = wholeWord - 1;
+            }
+        }
+        return best;
+    }
+
+    private static String phrase(Random random, int words) {
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            phrase.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+
+    private long newFilm(String name, String description) {
+        Film film = TestData.newFilm(name);
+        film.setDescription(description);
+        return storage.createFilms(film).getId();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
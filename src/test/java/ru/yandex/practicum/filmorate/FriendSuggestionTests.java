@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class FriendSuggestionTests {
+    private final InMemoryUserStorage storage = new InMemoryUserStorage();
+
+    @Test
+    public void friendsOfFriendsAreRankedByMutualFriends() {
+        long user = newUser();
+        long first = newUser();
+        long second = newUser();
+        long both = newUser();
+        long one = newUser();
+        storage.addFriend(user, first);
+        storage.addFriend(user, second);
+        storage.addFriend(first, both);
+        storage.addFriend(second, both);
+        storage.addFriend(second, one);
+
+        Assertions.assertEquals(List.of(both, one), ids(storage.getFriendSuggestions(user, 10)));
+        Assertions.assertEquals(List.of(both), ids(storage.getFriendSuggestions(user, 1)));
+        storage.addFriend(user, both);
+        Assertions.assertEquals(List.of(one), ids(storage.getFriendSuggestions(user, 10)));
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getFriendSuggestions(-1L, 10));
+    }
+
+    @Test
+    public void largeTraversalsAreCountedInShards() {
+        long user = newUser();
+        long[] candidates = new long[150];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = newUser();
+        }
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            long friend = newUser();
+            storage.addFriend(user, friend);
+            for (int k = 0; k < 100; k++) {
+                long candidate = candidates[(i * 7 + k) % candidates.length];
+                storage.addFriend(friend, candidate);
+                mutual.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        List<Long> expected = mutual.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(20)
+                .map(Map.Entry::getKey)
+                .toList();
+        Assertions.assertEquals(expected, ids(storage.getFriendSuggestions(user, 20)));
+    }
+
+    /**
+     * Grows a scale-free graph by preferential attachment and checks every user's suggestions
+     * against a plain recount; no user gets past the fan-out caps here, so they must match exactly.
+     */
+    @Test
+    public void suggestionsMatchARecountOnAPowerLawGraph() {
+        Random random = new Random(11);
+        List<Long> endpoints = new ArrayList<>();
+        Map<Long, Set<Long>> friends = new HashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            long user = newUser();
+            friends.put(user, new HashSet<>());
+            for (int edge = 0; edge < 4 && !endpoints.isEmpty(); edge++) {
+                long friend = endpoints.get(random.nextInt(endpoints.size()));
+                if (friend != user && friends.get(user).add(friend)) {
+                    friends.get(friend).add(user);
+                    storage.addFriend(user, friend);
+                    endpoints.add(friend);
+                    endpoints.add(user);
+                }
+            }
+            if (endpoints.isEmpty()) {
+                endpoints.add(user);
+            }
+        }
+
+        for (long user : friends.keySet()) {
+            Map<Long, Integer> mutual = new HashMap<>();
+            for (long friend : friends.get(user)) {
+                for (long candidate : friends.get(friend)) {
+                    if (candidate != user && !friends.get(user).contains(candidate)) {
+                        mutual.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            List<Long> expected = mutual.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                    .limit(10)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            Assertions.assertEquals(expected, ids(storage.getFriendSuggestions(user, 10)), "user " + user);
+        }
+    }
+
+    private long newUser() {
+        return storage.create(TestData.newUser("login")).getId();
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import ru.yandex.practicum.filmorate.controller.logging.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.controller.logging.HttpLogConfig;
+import ru.yandex.practicum.filmorate.controller.logging.HttpLogProperties;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+public class HttpLogTests {
+
+    @Test
+    public void exchangesAreWrittenInOrderBeforeClose() {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(collecting(written, new CountDownLatch(0)), 1_000);
+        IntStream.range(0, 100).forEach(i -> writer.write((Precorrelation) null, "request " + i));
+        writer.close();
+
+        Assertions.assertEquals(IntStream.range(0, 100).mapToObj(i -> "request " + i).toList(), written);
+        Assertions.assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    public void exchangesAreDroppedWhenWriterFallsBehind() {
+        List<String> written = new CopyOnWriteArrayList<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        AsyncHttpLogWriter writer = new AsyncHttpLogWriter(collecting(written, blocked), 1);
+        writer.write((Precorrelation) null, "being written");
+        writer.write((Precorrelation) null, "queued");
+        writer.write((Precorrelation) null, "dropped");
+        blocked.countDown();
+        writer.close();
+
+        Assertions.assertEquals(List.of("being written", "queued"), written);
+        Assertions.assertEquals(1, writer.getDropped());
+    }
+
+    @Test
+    public void sampleRateBoundsAreExact() {
+        HttpLogProperties properties = new HttpLogProperties();
+        properties.setSampleRate(0);
+        Assertions.assertFalse(new HttpLogConfig().requestCondition(properties).test(null));
+        properties.setSampleRate(1);
+        Assertions.assertTrue(new HttpLogConfig().requestCondition(properties).test(null));
+    }
+
+    private HttpLogWriter collecting(List<String> written, CountDownLatch blocked) {
+        return new HttpLogWriter() {
+            @Override
+            public void write(Precorrelation precorrelation, String request) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add(request);
+            }
+
+            @Override
+            public void write(Correlation correlation, String response) {
+                written.add(response);
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class IdGeneratorTests {
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = 15_625;
+
+    @Test
+    public void concurrentCreatesGetUniqueIds() throws Exception {
+        IdGenerator idGenerator = new IdGenerator();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int j = 0; j < ids.length; j++) {
+                        ids[j] = idGenerator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            int total = THREADS * IDS_PER_THREAD;
+            boolean[] seen = new boolean[total + 1];
+            for (Future<long[]> result : results) {
+                for (long id : result.get()) {
+                    Assertions.assertTrue(id > 0 && id <= total, "id out of range: " + id);
+                    Assertions.assertFalse(seen[(int) id], "duplicate id: " + id);
+                    seen[(int) id] = true;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void seededGeneratorContinuesAfterRestoredIds() {
+        IdGenerator idGenerator = new IdGenerator();
+        idGenerator.seed(41);
+        idGenerator.seed(7);
+        Assertions.assertEquals(42, idGenerator.nextId());
+    }
+}
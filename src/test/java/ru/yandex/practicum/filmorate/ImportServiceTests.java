@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportConfig;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class ImportServiceTests {
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ImportService importService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage);
+        FilmService filmService = new FilmService(filmStorage, userStorage);
+        executor = new ImportConfig().importExecutor();
+        importService = new ImportService(filmService, userService, new ObjectMapper().findAndRegisterModules(),
+                executor);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void validFilmsAreImportedAndInvalidOnesReported() throws Exception {
+        String lines = IntStream.range(0, 2_500)
+                .mapToObj(i -> "{\"name\":\"film " + i + "\",\"description\":\"description\","
+                        + "\"releaseDate\":\"2000-01-01\",\"duration\":90}")
+                .collect(Collectors.joining("\n"))
+                + "\n{\"name\":\"\",\"description\":\"description\",\"releaseDate\":\"2000-01-01\",\"duration\":90}"
+                + "\nnot json\n\n";
+
+        ImportResult result = importService.importFilms(stream(lines));
+
+        Assertions.assertEquals(2_500, result.imported());
+        Assertions.assertEquals(2, result.rejected());
+        Assertions.assertEquals(List.of("line 2501: film name cannot be empty"), result.errors().stream()
+                .filter(error -> error.startsWith("line 2501"))
+                .toList());
+        Set<Long> ids = filmStorage.getFilms().stream().map(Film::getId).collect(Collectors.toSet());
+        Assertions.assertEquals(LongStream.rangeClosed(1, 2_500).boxed().collect(Collectors.toSet()), ids);
+        Assertions.assertEquals(2_501L, filmStorage.createFilms(TestData.newFilm("film")).getId());
+    }
+
+    @Test
+    public void usersGetLoginAsDefaultName() throws Exception {
+        ImportResult result = importService.importUsers(stream(
+                "{\"email\":\"user@mail.com\",\"login\":\"user\",\"birthday\":\"1990-01-01\"}\n"
+                        + "{\"email\":\"broken\",\"login\":\"broken\",\"birthday\":\"1990-01-01\"}"));
+
+        Assertions.assertEquals(new ImportResult(1, 1, List.of("line 2: email is empty or doesn't have @")), result);
+        Assertions.assertEquals("user", userStorage.findUserById(1L).orElseThrow().getName());
+    }
+
+    private ByteArrayInputStream stream(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@JdbcTest(properties = "filmorate.storage.type=jdbc")
+@Import({FilmDbStorage.class, UserDbStorage.class})
+public class JdbcStorageTests {
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    public void filmsAreUpdatedAndRankedByLikes() {
+        User first = userStorage.create(TestData.newUser("first"));
+        User second = userStorage.create(TestData.newUser("second"));
+        Film film = filmStorage.createFilms(TestData.newFilm("film"));
+        Film popular = filmStorage.createFilms(TestData.newFilm("popular"));
+        filmStorage.addLike(film.getId(), first.getId());
+        filmStorage.addLike(popular.getId(), first.getId());
+        filmStorage.addLike(popular.getId(), second.getId());
+        filmStorage.addLike(popular.getId(), second.getId());
+        Assertions.assertEquals(Set.of(film.getId(), popular.getId()), filmStorage.getLikedFilmIds(first.getId()));
+
+        Film update = new Film();
+        update.setId(popular.getId());
+        update.setName("renamed");
+        Film updated = filmStorage.updateFilms(update);
+
+        Assertions.assertEquals("description", updated.getDescription());
+        Assertions.assertEquals(Set.of(first.getId(), second.getId()), updated.getLikes());
+        List<Film> top = filmStorage.getTopTen(10);
+        Assertions.assertEquals(List.of(popular.getId(), film.getId()), top.stream().map(Film::getId).toList());
+        Assertions.assertEquals("renamed", top.getFirst().getName());
+        Assertions.assertEquals(List.of(popular.getId()), filmStorage.searchFilms("RENAM", 10).stream()
+                .map(Film::getId)
+                .toList());
+        Assertions.assertEquals(List.of(film.getId()), filmStorage.searchFilms("film descr", 10).stream()
+                .map(Film::getId)
+                .toList());
+        FilmFilter filter = new FilmFilter(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 1), 90, null);
+        Assertions.assertEquals(List.of(popular.getId()), filmStorage.getFilms(filter, film.getId(), 10).stream()
+                .map(Film::getId)
+                .toList());
+        Assertions.assertEquals(List.of(), filmStorage.getFilms(new FilmFilter(null, null, 91, null), null, 10));
+        Assertions.assertEquals(List.of(popular.getId(), film.getId()), filmStorage.getTrending(TrendingWindow.HOUR, 10)
+                .stream()
+                .map(Film::getId)
+                .toList());
+
+        filmStorage.deleteLike(popular.getId(), first.getId());
+        filmStorage.deleteLike(popular.getId(), second.getId());
+        Assertions.assertEquals(List.of(film.getId()), filmStorage.getTopTen(1).stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(popular.getId()), filmStorage.getFilms(film.getId(), 10).stream()
+                .map(Film::getId)
+                .toList());
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.UNCHANGED, BatchStatus.NOT_FOUND,
+                BatchStatus.APPLIED), filmStorage.applyLikes(List.of(
+                new LikeChange(popular.getId(), second.getId(), false),
+                new LikeChange(popular.getId(), second.getId(), false),
+                new LikeChange(-1L, second.getId(), false),
+                new LikeChange(film.getId(), first.getId(), true))));
+        Assertions.assertEquals(Set.of(second.getId()), filmStorage.findFilmById(popular.getId()).orElseThrow()
+                .getLikes());
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.addLike(-1L, first.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.deleteLike(-1L, first.getId()));
+    }
+
+    @Test
+    public void friendshipsAreMutualAndIntersected() {
+        User first = userStorage.create(TestData.newUser("first"));
+        User second = userStorage.create(TestData.newUser("second"));
+        User common = userStorage.create(TestData.newUser("common"));
+        userStorage.addFriend(first.getId(), common.getId());
+        userStorage.addFriend(second.getId(), common.getId());
+        Assertions.assertEquals(List.of(second.getId()), userStorage.getFriendSuggestions(first.getId(), 10).stream()
+                .map(User::getId)
+                .toList());
+        User withFriend = userStorage.addFriend(first.getId(), second.getId());
+
+        Assertions.assertEquals(Set.of(second.getId(), common.getId()), withFriend.getFriends());
+        Assertions.assertEquals(List.of(first.getId(), second.getId()), userStorage.getFriends(common.getId())
+                .stream()
+                .map(User::getId)
+                .toList());
+        Assertions.assertEquals(List.of(common.getId()), userStorage.getCommonFriends(first.getId(), second.getId())
+                .stream()
+                .map(User::getId)
+                .toList());
+
+        userStorage.deleteFriend(common.getId(), first.getId());
+        Assertions.assertEquals(Set.of(second.getId()), userStorage.findUserById(first.getId()).orElseThrow()
+                .getFriends());
+        Assertions.assertTrue(userStorage.getCommonFriends(first.getId(), second.getId()).isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.getCommonFriends(first.getId(), -1L));
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.addFriend(first.getId(), -1L));
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.NOT_FOUND), userStorage.applyFriendships(
+                List.of(new FriendshipChange(second.getId(), first.getId(), true),
+                        new FriendshipChange(first.getId(), -1L, false))));
+        Assertions.assertTrue(userStorage.getFriends(first.getId()).isEmpty());
+    }
+
+    @Test
+    public void friendsGivenOnCreateAreFriendsOnBothSides() {
+        for (UserStorage storage : List.of(userStorage, new InMemoryUserStorage())) {
+            User first = storage.create(TestData.newUser("first"));
+            User second = storage.create(TestData.newUser("second"));
+            User joined = TestData.newUser("joined");
+            joined.setFriends(Set.of(first.getId(), second.getId()));
+            joined = storage.create(joined);
+
+            Assertions.assertEquals(Set.of(first.getId(), second.getId()), joined.getFriends());
+            Assertions.assertEquals(List.of(joined.getId()), storage.getFriends(first.getId()).stream()
+                    .map(User::getId)
+                    .toList());
+            Assertions.assertEquals(Set.of(joined.getId()), storage.findUserById(second.getId()).orElseThrow()
+                    .getFriends());
+            User lonely = TestData.newUser("lonely");
+            lonely.setFriends(Set.of(-1L));
+            Assertions.assertThrows(NotFoundException.class, () -> storage.create(lonely));
+        }
+    }
+
+    @Test
+    public void likedFilmIdsAreSampledPerUser() {
+        User fan = userStorage.create(TestData.newUser("fan"));
+        User casual = userStorage.create(TestData.newUser("casual"));
+        User stranger = userStorage.create(TestData.newUser("stranger"));
+        long[] filmIds = new long[7];
+        for (int i = 0; i < filmIds.length; i++) {
+            filmIds[i] = filmStorage.createFilms(TestData.newFilm("film " + i)).getId();
+            filmStorage.addLike(filmIds[i], fan.getId());
+        }
+        filmStorage.addLike(filmIds[1], casual.getId());
+        filmStorage.addLike(filmIds[2], casual.getId());
+
+        Map<Long, long[]> liked = filmStorage.getLikedFilmIds(List.of(fan.getId(), casual.getId(), stranger.getId()), 3);
+
+        Assertions.assertEquals(Set.of(fan.getId(), casual.getId()), liked.keySet());
+        Assertions.assertArrayEquals(new long[]{filmIds[0], filmIds[3], filmIds[6]}, liked.get(fan.getId()));
+        Assertions.assertArrayEquals(new long[]{filmIds[1], filmIds[2]}, liked.get(casual.getId()));
+    }
+
+    @Test
+    public void importedRecordsGetGeneratedIds() {
+        List<Film> films = List.of(TestData.newFilm("first"), TestData.newFilm("second"));
+        filmStorage.importFilms(films);
+        List<User> users = List.of(TestData.newUser("first"), TestData.newUser("second"));
+        userStorage.importUsers(users);
+
+        Assertions.assertEquals("second", filmStorage.findFilmById(films.get(1).getId()).orElseThrow().getName());
+        Assertions.assertEquals("second", userStorage.findUserById(users.get(1).getId()).orElseThrow().getLogin());
+    }
+}
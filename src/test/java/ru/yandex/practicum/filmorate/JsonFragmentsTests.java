@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragmentConverter;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.List;
+
+public class JsonFragmentsTests {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final JsonFragments fragments = new JsonFragments(objectMapper, 100);
+    private final FilmStorage storage = new InMemoryFilmStorage();
+
+    @Test
+    public void fragmentsFollowTheStoredVersion() throws Exception {
+        Film film = storage.createFilms(TestData.newFilm("name"));
+        byte[] first = fragments.fragment(film, false);
+        Assertions.assertSame(first, fragments.fragment(film, false));
+
+        storage.addLike(film.getId(), 7L);
+        Film liked = storage.findFilmById(film.getId()).orElseThrow();
+        JsonNode json = objectMapper.readTree(fragments.fragment(liked, false));
+        Assertions.assertEquals(7L, json.get("likes").get(0).asLong());
+        Assertions.assertFalse(objectMapper.readTree(fragments.fragment(liked, true)).has("likes"));
+    }
+
+    @Test
+    public void converterWritesTheSameJsonAsJackson() throws Exception {
+        storage.createFilms(TestData.newFilm("name"));
+        Film second = storage.createFilms(TestData.newFilm("name"));
+        storage.addLike(second.getId(), 1L);
+        List<Film> films = List.copyOf(storage.getFilms());
+        JsonFragmentConverter converter = new JsonFragmentConverter(objectMapper, fragments);
+        Type type = FilmStorage.class.getMethod("getTopTen", Integer.class).getGenericReturnType();
+        Assertions.assertTrue(converter.canWrite(type, List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canWrite(List.class, List.class, MediaType.APPLICATION_JSON));
+        Assertions.assertFalse(converter.canRead(Film.class, MediaType.APPLICATION_JSON));
+
+        MockHttpOutputMessage full = new MockHttpOutputMessage();
+        converter.write(films, type, MediaType.APPLICATION_JSON, full);
+        Assertions.assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(films)),
+                objectMapper.readTree(full.getBodyAsString()));
+
+        MockHttpOutputMessage compact = new MockHttpOutputMessage();
+        converter.write(JsonFragments.compact(films), type, MediaType.APPLICATION_JSON, compact);
+        JsonNode compactJson = objectMapper.readTree(compact.getBodyAsString());
+        Assertions.assertEquals(2, compactJson.size());
+        Assertions.assertFalse(compactJson.get(1).has("likes"));
+    }
+
+    @Test
+    public void cachedResponsesAllocateFarLessThanSerializing() throws Exception {
+        Film film = storage.createFilms(TestData.newFilm("name"));
+        for (long userId = 1; userId <= 1_000; userId++) {
+            storage.addLike(film.getId(), userId);
+        }
+        List<Film> films = List.of(storage.findFilmById(film.getId()).orElseThrow());
+        OutputStream out = OutputStream.nullOutputStream();
+        JsonFragments uncached = new JsonFragments(objectMapper, 0);
+        uncached.writeArray(films, out);
+        fragments.writeArray(films, out);
+
+        long serialized = allocatedBy(() -> uncached.writeArray(films, out));
+        long cached = allocatedBy(() -> fragments.writeArray(films, out));
+
+        Assertions.assertTrue(cached * 10 < serialized, "cached " + cached + " bytes, serialized " + serialized);
+    }
+
+    private static long allocatedBy(Write write) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            write.run();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private interface Write {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.LongAdjacencySet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class LongAdjacencySetTests {
+
+    @Test
+    public void keepsIdsSortedAndUnique() {
+        LongAdjacencySet set = LongAdjacencySet.of(List.of(5L, 1L, 3L, 3L));
+        Assertions.assertSame(set, set.with(3L));
+        LongAdjacencySet withTwo = set.with(2L);
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 5L), new ArrayList<>(withTwo));
+        Assertions.assertEquals(List.of(1L, 3L, 5L), new ArrayList<>(set));
+        Assertions.assertTrue(set.contains(5L));
+        Assertions.assertFalse(set.contains(4L));
+        Assertions.assertFalse(set.contains("5"));
+    }
+
+    @Test
+    public void behavesLikeTreeSetUnderRandomAddsAndRemoves() {
+        LongAdjacencySet set = LongAdjacencySet.EMPTY;
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextInt(1_000);
+            boolean add = random.nextBoolean();
+            LongAdjacencySet next = add ? set.with(id) : set.without(id);
+            boolean changed = add ? expected.add(id) : expected.remove(id);
+            Assertions.assertEquals(changed, next != set);
+            set = next;
+        }
+        Assertions.assertEquals(expected, set);
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+    }
+
+    @Test
+    public void largeSetsSplitAndMergeChunksLikeTreeSet() {
+        LongAdjacencySet set = LongAdjacencySet.EMPTY;
+        TreeSet<Long> expected = new TreeSet<>();
+        List<LongAdjacencySet> versions = new ArrayList<>();
+        List<List<Long>> versionIds = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(20_000);
+            boolean add = i < 100_000 ? random.nextInt(4) > 0 : random.nextInt(4) == 0;
+            set = add ? set.with(id) : set.without(id);
+            if (add) {
+                expected.add(id);
+            } else {
+                expected.remove(id);
+            }
+            if (i % 20_000 == 0) {
+                versions.add(set);
+                versionIds.add(new ArrayList<>(expected));
+            }
+        }
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        List<Long> ids = new ArrayList<>(expected);
+        for (int i = 0; i < ids.size(); i += 97) {
+            Assertions.assertEquals(ids.get(i), set.idAt(i));
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> LongAdjacencySet.EMPTY.idAt(0));
+        for (int i = 0; i < versions.size(); i++) {
+            Assertions.assertEquals(versionIds.get(i), new ArrayList<>(versions.get(i)));
+        }
+
+        LongAdjacencySet small = LongAdjacencySet.of(List.of(ids.get(0), ids.get(ids.size() / 2), 50_000L));
+        Assertions.assertArrayEquals(new long[]{ids.get(0), ids.get(ids.size() / 2)}, LongAdjacencySet.intersect(set, small));
+        Assertions.assertArrayEquals(set.toLongArray(), LongAdjacencySet.intersect(set, LongAdjacencySet.ofSorted(set.toLongArray())));
+    }
+
+    @Test
+    public void versionsAreUnaffectedByLaterChanges() {
+        LongAdjacencySet set = LongAdjacencySet.of(List.of(1L, 2L, 3L, 4L));
+        var iterator = set.iterator();
+        LongAdjacencySet changed = set.without(2L).with(10L);
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), new ArrayList<>(set));
+        Assertions.assertEquals(1L, iterator.next());
+        Assertions.assertThrows(UnsupportedOperationException.class, iterator::remove);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> set.add(5L));
+        Assertions.assertEquals(List.of(1L, 3L, 4L, 10L), new ArrayList<>(changed));
+        Assertions.assertSame(LongAdjacencySet.EMPTY, LongAdjacencySet.of(List.of(7L)).without(7L));
+        Assertions.assertEquals(0, LongAdjacencySet.EMPTY.toLongArray().length);
+    }
+
+    @Test
+    public void intersectsBalancedAndSkewedIdLists() {
+        long[] small = {3, 500, 999, 5_000};
+        long[] large = new long[2_000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 2L + 1;
+        }
+        Assertions.assertArrayEquals(new long[]{3, 999}, LongAdjacencySet.intersect(small, large));
+        Assertions.assertArrayEquals(new long[]{3, 999}, LongAdjacencySet.intersect(large, small));
+        Assertions.assertArrayEquals(new long[]{2, 4}, LongAdjacencySet.intersect(new long[]{1, 2, 4}, new long[]{2, 3, 4, 5}));
+        Assertions.assertEquals(0, LongAdjacencySet.intersect(new long[0], large).length);
+    }
+}
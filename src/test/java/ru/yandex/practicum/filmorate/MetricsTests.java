@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+public class MetricsTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void storageCallsAreTimedPerMethodAndOutcome() {
+        FilmStorage storage = timed(new InMemoryFilmStorage());
+        storage.createFilms(TestData.newFilm("film"));
+        storage.createFilms(TestData.newFilm("film"));
+        Assertions.assertThrows(NotFoundException.class, () -> storage.addLike(-1L, 1L));
+
+        Assertions.assertEquals(2, registry.get(StorageMetrics.TIMER)
+                .tag("method", "createFilms")
+                .tag("exception", "none")
+                .timer()
+                .count());
+        Assertions.assertEquals(1, registry.get(StorageMetrics.TIMER)
+                .tag("method", "addLike")
+                .tag("exception", "NotFoundException")
+                .timer()
+                .count());
+    }
+
+    @Test
+    public void gaugesReportStorageSizes() {
+        UserStorage userStorage = new InMemoryUserStorage();
+        FilmStorage filmStorage = new InMemoryFilmStorage();
+        new UserService(userStorage).bindTo(registry);
+        new FilmService(filmStorage, userStorage).bindTo(registry);
+        User first = userStorage.create(TestData.newUser("first"));
+        User second = userStorage.create(TestData.newUser("second"));
+        userStorage.addFriend(first.getId(), second.getId());
+        Film film = filmStorage.createFilms(TestData.newFilm("film"));
+        filmStorage.addLike(film.getId(), first.getId());
+        filmStorage.addLike(film.getId(), second.getId());
+
+        Assertions.assertEquals(2, registry.get("filmorate.users").gauge().value());
+        Assertions.assertEquals(1, registry.get("filmorate.friendships").gauge().value());
+        Assertions.assertEquals(1, registry.get("filmorate.films").gauge().value());
+        Assertions.assertEquals(2, registry.get("filmorate.likes").gauge().value());
+    }
+
+    private <T> T timed(T storage) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(storage);
+        factory.addAspect(new TimedAspect(registry));
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RecommendationServiceTests {
+    private final FilmStorage filmStorage = new InMemoryFilmStorage();
+    private final UserStorage userStorage = new InMemoryUserStorage();
+    private final RecommendationService recommendations = new RecommendationService(filmStorage, userStorage);
+
+    @Test
+    public void filmsOfFriendsAndCoLikersAreRankedWithoutOwnLikes() {
+        long user = newUser("user");
+        long coLiker = newUser("coLiker");
+        long friend = newUser("friend");
+        long stranger = newUser("stranger");
+        long shared = newFilm();
+        long own = newFilm();
+        long coLiked = newFilm();
+        long friendLiked = newFilm();
+        long strangerLiked = newFilm();
+        userStorage.addFriend(user, friend);
+        like(user, shared, own);
+        like(coLiker, shared, own, coLiked);
+        like(friend, friendLiked, coLiked);
+        like(stranger, strangerLiked);
+
+        Assertions.assertEquals(Set.of(shared, own), filmStorage.getLikedFilmIds(user));
+        Assertions.assertEquals(List.of(coLiked, friendLiked), recommendations.recommend(user, 10).stream()
+                .map(Film::getId)
+                .toList());
+        Assertions.assertEquals(List.of(coLiked), recommendations.recommend(user, 1).stream()
+                .map(Film::getId)
+                .toList());
+
+        filmStorage.deleteLike(coLiked, friend);
+        filmStorage.deleteLike(coLiked, coLiker);
+        Assertions.assertEquals(List.of(friendLiked), recommendations.recommend(user, 10).stream()
+                .map(Film::getId)
+                .toList());
+        Assertions.assertThrows(NotFoundException.class, () -> recommendations.recommend(-1, 10));
+    }
+
+    @Test
+    public void neighboursAreScoredBySampleOfTheirLikes() {
+        long user = newUser("user");
+        long fan = newUser("fan");
+        long shared = newFilm();
+        like(user, shared);
+        like(fan, shared);
+        long[] fanLiked = new long[401];
+        for (int i = 0; i < fanLiked.length; i++) {
+            fanLiked[i] = newFilm();
+            like(fan, fanLiked[i]);
+        }
+
+        Map<Long, long[]> sampled = filmStorage.getLikedFilmIds(List.of(user, fan), 200);
+        Assertions.assertArrayEquals(new long[]{shared}, sampled.get(user));
+        // every third of the 402 likes, the shared film among them
+        Assertions.assertEquals(134, sampled.get(fan).length);
+        Assertions.assertEquals(133, recommendations.recommend(user, 1_000).size());
+    }
+
+    private void like(long userId, long... filmIds) {
+        for (long filmId : filmIds) {
+            filmStorage.addLike(filmId, userId);
+        }
+    }
+
+    private long newUser(String login) {
+        return userStorage.create(TestData.newUser(login)).getId();
+    }
+
+    private long newFilm() {
+        return filmStorage.createFilms(TestData.newFilm("name")).getId();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ServiceCacheTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private FilmService filmService;
+    private UserService userService;
+
+    @BeforeEach
+    public void init() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage);
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage);
+        userService.bindTo(registry);
+        filmService.bindTo(registry);
+    }
+
+    @Test
+    public void popularFilmsAreServedFromCacheUntilRankingMayChange() {
+        User user = userService.create(TestData.newUser("user"));
+        User other = userService.create(TestData.newUser("other"));
+        Film first = filmService.createFilms(TestData.newFilm("first"));
+        Film second = filmService.createFilms(TestData.newFilm("second"));
+        Film third = filmService.createFilms(TestData.newFilm("third"));
+        filmService.addLike(first.getId(), user.getId());
+        filmService.addLike(first.getId(), other.getId());
+
+        Assertions.assertEquals(List.of(first.getId()), ids(filmService.getTopTen(1)));
+        filmService.addLike(second.getId(), user.getId());
+        Assertions.assertEquals(List.of(first.getId()), ids(filmService.getTopTen(1)));
+        Assertions.assertEquals(1.0, hits("films.popular"));
+
+        filmService.addLike(third.getId(), user.getId());
+        filmService.addLike(third.getId(), other.getId());
+        filmService.deleteLike(first.getId(), other.getId());
+        Assertions.assertEquals(List.of(third.getId()), ids(filmService.getTopTen(1)));
+        Assertions.assertEquals(1.0, hits("films.popular"));
+    }
+
+    @Test
+    public void popularListLoadedDuringALikeIsNotKept() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        User user = userStorage.create(TestData.newUser("user"));
+        User other = userStorage.create(TestData.newUser("other"));
+        AtomicReference<Runnable> duringLoad = new AtomicReference<>();
+        FilmService service = new FilmService(new InMemoryFilmStorage() {
+            @Override
+            public List<Film> getTopTen(Integer count) {
+                List<Film> top = super.getTopTen(count);
+                Runnable write = duringLoad.getAndSet(null);
+                if (write != null) {
+                    write.run();
+                }
+                return top;
+            }
+        }, userStorage);
+        Film first = service.createFilms(TestData.newFilm("first"));
+        Film second = service.createFilms(TestData.newFilm("second"));
+        service.addLike(first.getId(), user.getId());
+        service.addLike(second.getId(), user.getId());
+
+        duringLoad.set(() -> service.addLike(second.getId(), other.getId()));
+        Assertions.assertEquals(List.of(first.getId()), ids(service.getTopTen(1)));
+        Assertions.assertEquals(List.of(second.getId()), ids(service.getTopTen(1)));
+    }
+
+    @Test
+    public void friendListsAreInvalidatedByFriendshipsAndUpdates() {
+        User user = userService.create(TestData.newUser("user"));
+        User other = userService.create(TestData.newUser("other"));
+        User common = userService.create(TestData.newUser("common"));
+        userService.addFriend(user.getId(), common.getId());
+        userService.addFriend(other.getId(), common.getId());
+
+        Assertions.assertEquals(List.of(common.getId()), ids(userService.getCommonFriends(user.getId(), other.getId())));
+        Assertions.assertEquals(List.of(common.getId()), ids(userService.getCommonFriends(other.getId(), user.getId())));
+        Assertions.assertEquals(1.0, hits("users.friends.common"));
+
+        userService.deleteFriend(common.getId(), other.getId());
+        Assertions.assertTrue(userService.getCommonFriends(user.getId(), other.getId()).isEmpty());
+
+        Assertions.assertEquals("common", userService.getFriendsList(user.getId()).getFirst().getName());
+        User renamed = TestData.newUser("common");
+        renamed.setId(common.getId());
+        renamed.setName("renamed");
+        userService.update(renamed);
+        Assertions.assertEquals("renamed", userService.getFriendsList(user.getId()).getFirst().getName());
+    }
+
+    private double hits(String cache) {
+        return registry.get("cache.gets")
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+    }
+
+    private List<Long> ids(List<?> entities) {
+        return entities.stream()
+                .map(entity -> entity instanceof Film film ? film.getId() : ((User) entity).getId())
+                .toList();
+    }
+}
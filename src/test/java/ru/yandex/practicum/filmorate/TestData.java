@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Valid films and users for tests to create; tests change the fields they are about.
+ */
+final class TestData {
+
+    private TestData() {
+    }
+
+    static User newUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@mail.com");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    static Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("description");
+        film.setDuration(90);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        return film;
+    }
+}
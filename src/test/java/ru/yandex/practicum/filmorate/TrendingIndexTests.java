@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TrendingIndexTests {
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_000_000 * MINUTE;
+
+    @Test
+    public void likesLeaveEachWindowWhenTheyGetOld() {
+        TrendingIndex index = new TrendingIndex();
+        index.record(1, 1, START);
+        index.record(1, 1, START);
+        index.record(2, 1, START + 90 * MINUTE);
+        index.record(3, 1, START + 100 * MINUTE);
+        index.record(3, -1, START + 110 * MINUTE);
+
+        long now = START + 120 * MINUTE;
+        Assertions.assertEquals(List.of(2L), index.top(TrendingWindow.HOUR, 10, now));
+        Assertions.assertEquals(List.of(1L, 2L), index.top(TrendingWindow.DAY, 10, now));
+        Assertions.assertEquals(List.of(1L), index.top(TrendingWindow.DAY, 1, now));
+        Assertions.assertEquals(List.of(), index.top(TrendingWindow.DAY, 10, now + 2 * 24 * 60 * MINUTE));
+        Assertions.assertEquals(List.of(1L, 2L), index.top(TrendingWindow.WEEK, 10, now + 2 * 24 * 60 * MINUTE));
+
+        index.record(4, 1, START - 7 * 24 * 60 * MINUTE);
+        Assertions.assertEquals(List.of(1L, 2L), index.top(TrendingWindow.WEEK, 10, now));
+    }
+
+    @Test
+    public void withdrawnLikeLeavesOnlyTheWindowsThatCountedIt() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        long old = storage.createFilms(TestData.newFilm("old")).getId();
+        long fresh = storage.createFilms(TestData.newFilm("fresh")).getId();
+        long now = System.currentTimeMillis();
+        storage.restoreLike(old, 1, false, now - 2 * 24 * 60 * MINUTE);
+        storage.restoreLike(old, 2, false, now - 2 * 24 * 60 * MINUTE);
+        storage.restoreLike(fresh, 1, false, now - MINUTE);
+        Assertions.assertEquals(now - 2 * 24 * 60 * MINUTE, storage.likedAt(old, 1));
+
+        storage.deleteLike(old, 1L);
+        Assertions.assertEquals(0, storage.likedAt(old, 1));
+        Assertions.assertEquals(List.of(fresh), ids(storage.getTrending(TrendingWindow.DAY, 10)));
+        Assertions.assertEquals(List.of(old, fresh), ids(storage.getTrending(TrendingWindow.WEEK, 10)));
+        storage.deleteLike(old, 2L);
+        Assertions.assertEquals(List.of(fresh), ids(storage.getTrending(TrendingWindow.WEEK, 10)));
+
+        storage.addLike(old, 3L);
+        Assertions.assertEquals(List.of(old, fresh), ids(storage.getTrending(TrendingWindow.HOUR, 10)));
+        storage.deleteLike(fresh, 1L);
+        Assertions.assertEquals(List.of(old), ids(storage.getTrending(TrendingWindow.HOUR, 10)));
+    }
+
+    @Test
+    public void windowsMatchARecountOfAMillionLikes() {
+        TrendingIndex index = new TrendingIndex();
+        List<long[]> likes = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            long at = START + i * (3 * 60 * MINUTE / 1_000_000);
+            long filmId = (long) Math.sqrt(random.nextInt(1_000_000));
+            index.record(filmId, 1, at);
+            likes.add(new long[]{filmId, at});
+        }
+        long now = likes.getLast()[1];
+
+        for (TrendingWindow window : TrendingWindow.values()) {
+            long horizon = (now / MINUTE - window.minutes() + 1) * MINUTE;
+            Map<Long, Integer> counts = new HashMap<>();
+            for (long[] like : likes) {
+                if (like[1] >= horizon) {
+                    counts.merge(like[0], 1, Integer::sum);
+                }
+            }
+            List<Long> expected = counts.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                    .limit(20)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            Assertions.assertEquals(expected, index.top(window, 20, now), window.name());
+        }
+    }
+
+    private List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
@@ -1,18 +1,22 @@
 package ru.yandex.practicum.filmorate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.controller.json.JsonFragments;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.List;
 
 public class UserControllerTests {
     private UserController userController;
@@ -22,9 +26,10 @@ public class UserControllerTests {
 
     @BeforeEach
     public void init() {
-        userStorage = new InMemoryUserStorage(new HashMap<>());
+        userStorage = new InMemoryUserStorage();
         userService = new UserService(userStorage);
-        userController = new UserController(userService);
+        userController = new UserController(userService,
+                new JsonFragments(new ObjectMapper().findAndRegisterModules(), 100));
         user = new User();
         user.setName("name");
         user.setLogin("login");
@@ -41,7 +46,7 @@ public class UserControllerTests {
         Assertions.assertEquals(user.getEmail(), createdUser.getEmail());
         Assertions.assertEquals(user.getLogin(), createdUser.getLogin());
         Assertions.assertEquals(user.getBirthday(), createdUser.getBirthday());
-        Assertions.assertEquals(1, userController.get().size());
+        Assertions.assertEquals(1, userController.get(null, null, false).size());
     }
 
     @Test
@@ -101,7 +106,7 @@ public class UserControllerTests {
         Assertions.assertEquals(userForUpdate.getName(), newUserForTest.getName());
         Assertions.assertEquals(userForUpdate.getEmail(), newUserForTest.getEmail());
         Assertions.assertEquals(createdUser.getLogin(), newUserForTest.getLogin());
-        Assertions.assertEquals(1, userController.get().size());
+        Assertions.assertEquals(1, userController.get(null, null, false).size());
 
     }
 
@@ -114,9 +119,9 @@ public class UserControllerTests {
         oneMoreUser.setEmail("mail@mail.com");
         oneMoreUser.setBirthday(LocalDate.of(1990, 1, 1));
         User oneMoreCreatedUser = userController.create(oneMoreUser);
-        Assertions.assertTrue(userController.get().contains(createdUser));
-        Assertions.assertTrue(userController.get().contains(oneMoreCreatedUser));
-        Assertions.assertEquals(2, userController.get().size());
+        Assertions.assertTrue(userController.get(null, null, false).contains(createdUser));
+        Assertions.assertTrue(userController.get(null, null, false).contains(stored(oneMoreCreatedUser)));
+        Assertions.assertEquals(2, userController.get(null, null, false).size());
     }
 
     @Test
@@ -129,8 +134,8 @@ public class UserControllerTests {
         oneMoreUser.setBirthday(LocalDate.of(1990, 1, 1));
         User oneMoreCreatedUser = userController.create(oneMoreUser);
         userController.addFriend(createdUser.getId(), oneMoreCreatedUser.getId());
-        Assertions.assertTrue(createdUser.getFriends().contains(oneMoreCreatedUser.getId()));
-        Assertions.assertTrue(oneMoreCreatedUser.getFriends().contains(createdUser.getId()));
+        Assertions.assertTrue(stored(createdUser).getFriends().contains(oneMoreCreatedUser.getId()));
+        Assertions.assertTrue(stored(oneMoreCreatedUser).getFriends().contains(createdUser.getId()));
     }
 
     @Test
@@ -143,12 +148,12 @@ public class UserControllerTests {
         oneMoreUser.setBirthday(LocalDate.of(1990, 1, 1));
         User oneMoreCreatedUser = userController.create(oneMoreUser);
         userController.addFriend(createdUser.getId(), oneMoreCreatedUser.getId());
-        Assertions.assertTrue(createdUser.getFriends().contains(oneMoreCreatedUser.getId()));
-        Assertions.assertTrue(oneMoreCreatedUser.getFriends().contains(createdUser.getId()));
+        Assertions.assertTrue(stored(createdUser).getFriends().contains(oneMoreCreatedUser.getId()));
+        Assertions.assertTrue(stored(oneMoreCreatedUser).getFriends().contains(createdUser.getId()));
 
         userController.deleteFriend(createdUser.getId(), oneMoreCreatedUser.getId());
-        Assertions.assertTrue(createdUser.getFriends().isEmpty());
-        Assertions.assertTrue(oneMoreCreatedUser.getFriends().isEmpty());
+        Assertions.assertTrue(stored(createdUser).getFriends().isEmpty());
+        Assertions.assertTrue(stored(oneMoreCreatedUser).getFriends().isEmpty());
     }
 
     @Test
@@ -168,6 +173,31 @@ public class UserControllerTests {
         thirdUser.setBirthday(LocalDate.of(1990, 2, 1));
         User thirdCreatedUser = userController.create(thirdUser);
         userController.addFriend(thirdCreatedUser.getId(), oneMoreCreatedUser.getId());
-        Assertions.assertTrue(userController.getCommonFriends(createdUser.getId(), thirdCreatedUser.getId()).contains(oneMoreCreatedUser));
+        Assertions.assertTrue(userController.getCommonFriends(createdUser.getId(), thirdCreatedUser.getId(), false).contains(stored(oneMoreCreatedUser)));
+    }
+
+    @Test
+    public void friendshipsAreAppliedInBulkWithPerItemStatus() {
+        User createdUser = userController.create(user);
+        User friend = new User();
+        friend.setLogin("friend");
+        friend.setEmail("friend@mail.com");
+        friend.setBirthday(LocalDate.of(1990, 1, 1));
+        User createdFriend = userController.create(friend);
+
+        List<BatchStatus> results = userController.applyFriendships(List.of(
+                new FriendshipChange(createdUser.getId(), createdFriend.getId(), false),
+                new FriendshipChange(createdFriend.getId(), createdUser.getId(), false),
+                new FriendshipChange(createdUser.getId(), 999L, false)));
+
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.UNCHANGED, BatchStatus.NOT_FOUND), results);
+        Assertions.assertEquals(List.of(stored(createdFriend)), userController.getFriends(createdUser.getId(), false));
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED), userController.applyFriendships(List.of(
+                new FriendshipChange(createdFriend.getId(), createdUser.getId(), true))));
+        Assertions.assertTrue(userController.getFriends(createdUser.getId(), false).isEmpty());
+    }
+
+    private User stored(User user) {
+        return userStorage.findUserById(user.getId()).orElseThrow();
     }
 }
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmValidator;
+import ru.yandex.practicum.filmorate.storage.user.UserValidator;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+public class ValidatorTests {
+
+    @Test
+    public void validEntitiesAreCheckedWithoutAllocating() {
+        Film film = TestData.newFilm("film");
+        User user = TestData.newUser("login");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 10_000; i++) {
+            FilmValidator.validateForCreate(film);
+            UserValidator.validate(user);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            FilmValidator.validateForCreate(film);
+            UserValidator.validate(user);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertTrue(allocated < 10_000, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void updateAppliesTheCreateRulesToTheMergedFilm() {
+        Film stored = TestData.newFilm("film");
+        Film update = new Film();
+        update.setReleaseDate(LocalDate.of(1895, 12, 28));
+        Assertions.assertEquals(stored.getName(), FilmValidator.mergeForUpdate(update, stored).getName());
+
+        Film invalid = new Film();
+        invalid.setDuration(0);
+        ValidationException exception = Assertions.assertThrows(ValidationException.class,
+                () -> FilmValidator.mergeForUpdate(invalid, stored));
+        Assertions.assertEquals("Duration cant be negative", exception.getMessage());
+
+        Film future = new Film();
+        future.setReleaseDate(LocalDate.now().plusDays(1));
+        Assertions.assertThrows(ValidationException.class, () -> FilmValidator.mergeForUpdate(future, stored));
+    }
+
+    @Test
+    public void blankLoginIsRejected() {
+        User user = TestData.newUser("login");
+        user.setLogin("");
+        Assertions.assertEquals("login is empty or contains spaces", UserValidator.firstError(user));
+    }
+
+    @Test
+    public void emailAndBirthdayFollowTheBeanValidationRules() {
+        User user = TestData.newUser("login");
+        for (String email : new String[]{"a@b", "first.last+tag@mail.example.com", "o'neil@my-mail.ru"}) {
+            user.setEmail(email);
+            Assertions.assertNull(UserValidator.firstError(user), email);
+        }
+        for (String email : new String[]{"@mail.com", "login@", "a@b@c", "a b@mail.com", ".a@mail.com", "a.@mail.com",
+                "a..b@mail.com", "a@.mail.com", "a@mail..com", "a@mail.com.", "a@mail_com"}) {
+            user.setEmail(email);
+            Assertions.assertEquals("email is not a valid address", UserValidator.firstError(user), email);
+        }
+
+        user = TestData.newUser("login");
+        user.setBirthday(LocalDate.now());
+        Assertions.assertEquals("date of birth must be in the past", UserValidator.firstError(user));
+        user.setBirthday(LocalDate.now().minusDays(1));
+        Assertions.assertNull(UserValidator.firstError(user));
+    }
+}
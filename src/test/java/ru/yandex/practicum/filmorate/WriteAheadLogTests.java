@@ -0,0 +1,361 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.exceptions.OverloadedException;
+import ru.yandex.practicum.filmorate.model.BatchStatus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipChange;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotManager;
+import ru.yandex.practicum.filmorate.storage.wal.WalProperties;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class WriteAheadLogTests {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void storagesAreRestoredFromSnapshotAndLog() throws Exception {
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+
+        WriteAheadLog wal = new WriteAheadLog(properties, objectMapper);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(wal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(wal);
+        SnapshotManager snapshotManager = new SnapshotManager(wal, filmStorage, userStorage, properties);
+        snapshotManager.recover();
+
+        User first = userStorage.create(TestData.newUser("first"));
+        User second = userStorage.create(TestData.newUser("second"));
+        Film film = filmStorage.createFilms(TestData.newFilm("film"));
+        Film otherFilm = filmStorage.createFilms(TestData.newFilm("other film"));
+        filmStorage.addLike(film.getId(), first.getId());
+        userStorage.addFriend(first.getId(), second.getId());
+        snapshotManager.snapshot();
+
+        Film update = TestData.newFilm("renamed film");
+        update.setId(film.getId());
+        filmStorage.updateFilms(update);
+        filmStorage.addLike(otherFilm.getId(), second.getId());
+        filmStorage.deleteLike(film.getId(), first.getId());
+        userStorage.deleteFriend(second.getId(), first.getId());
+        snapshotManager.shutdown();
+        wal.close();
+
+        WriteAheadLog restoredWal = new WriteAheadLog(properties, objectMapper);
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage(restoredWal);
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage(restoredWal);
+        new SnapshotManager(restoredWal, restoredFilms, restoredUsers, properties).recover();
+        try {
+            Assertions.assertEquals(2, restoredUsers.get().size());
+            Assertions.assertTrue(restoredUsers.getFriends(first.getId()).isEmpty());
+            Assertions.assertEquals(List.of(otherFilm.getId(), film.getId()), restoredFilms.getTopTen(2).stream()
+                    .map(Film::getId)
+                    .toList());
+            Assertions.assertEquals("renamed film", restoredFilms.getTopTen(2).get(1).getName());
+            Assertions.assertEquals(Set.of(second.getId()), restoredFilms.getTopTen(1).getFirst().getLikes());
+            Assertions.assertEquals(3L, restoredFilms.createFilms(TestData.newFilm("new film")).getId());
+        } finally {
+            restoredWal.close();
+        }
+    }
+
+    @Test
+    public void updatesAreLoggedWithoutLikesAndFriends() throws Exception {
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+        WriteAheadLog wal = new WriteAheadLog(properties, objectMapper);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(wal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(wal);
+
+        User user = userStorage.create(TestData.newUser("user"));
+        User friend = userStorage.create(TestData.newUser("friend"));
+        userStorage.addFriend(user.getId(), friend.getId());
+        Film film = TestData.newFilm("film");
+        film.setLikes(Set.of(user.getId()));
+        film = filmStorage.createFilms(film);
+        filmStorage.addLike(film.getId(), friend.getId());
+        Film filmUpdate = TestData.newFilm("renamed film");
+        filmUpdate.setId(film.getId());
+        filmStorage.updateFilms(filmUpdate);
+        User userUpdate = TestData.newUser("renamed");
+        userUpdate.setId(user.getId());
+        userStorage.update(userUpdate);
+        wal.close();
+
+        List<String> lines = Files.readAllLines(directory.resolve("wal-1.log"));
+        Assertions.assertTrue(lines.get(3).contains("\"likes\":[" + user.getId() + "]"), lines.get(3));
+        Assertions.assertFalse(lines.get(5).contains("likes"), lines.get(5));
+        Assertions.assertFalse(lines.get(6).contains("friends"), lines.get(6));
+    }
+
+    @Test
+    public void changesAreRefusedWhileTheQueueIsFull() throws Exception {
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setQueueCapacity(1);
+        WriteAheadLog wal = new WriteAheadLog(properties, objectMapper);
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Void> held = wal.likeAdded(1, 1, 0, () -> {
+                applying.countDown();
+                awaitQuietly(release);
+                return null;
+            });
+            Assertions.assertTrue(applying.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Void> queued = wal.likeAdded(1, 2, 0, () -> null);
+            CompletableFuture<Void> refused = wal.likeAdded(1, 3, 0, () -> null);
+            ExecutionException error = Assertions.assertThrows(ExecutionException.class, refused::get);
+            Assertions.assertInstanceOf(OverloadedException.class, error.getCause());
+
+            release.countDown();
+            held.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            wal.likeAdded(1, 3, 0, () -> null).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            wal.close();
+        }
+    }
+
+    @Test
+    public void changesAreAppliedOnlyOnceDurableAndWaitedForOutsideTheLock() throws Exception {
+        HeldJournal journal = new HeldJournal();
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(journal);
+        long filmId = storage.createFilms(TestData.newFilm("film")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> storage.addLike(filmId, 1L));
+            Future<?> second = executor.submit(() -> storage.addLike(filmId, 2L));
+            Runnable firstDurable = journal.held.poll(5, TimeUnit.SECONDS);
+            Runnable secondDurable = journal.held.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(secondDurable);
+            Assertions.assertTrue(storage.findFilmById(filmId).orElseThrow().getLikes().isEmpty());
+            firstDurable.run();
+            secondDurable.run();
+            first.get();
+            second.get();
+            Assertions.assertEquals(Set.of(1L, 2L), storage.findFilmById(filmId).orElseThrow().getLikes());
+
+            journal.failing = true;
+            Future<?> failed = executor.submit(() -> storage.addLike(filmId, 3L));
+            journal.held.poll(5, TimeUnit.SECONDS).run();
+            ExecutionException error = Assertions.assertThrows(ExecutionException.class, failed::get);
+            Assertions.assertInstanceOf(IllegalStateException.class, error.getCause());
+            Assertions.assertEquals(Set.of(1L, 2L), storage.findFilmById(filmId).orElseThrow().getLikes());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void batchSplitBySnapshotIsRecovered() throws Exception {
+        WalProperties properties = new WalProperties();
+        properties.setDirectory(directory.toString());
+
+        Storages storages = open(properties);
+        User first = storages.users().create(TestData.newUser("first"));
+        User second = storages.users().create(TestData.newUser("second"));
+        Film film = storages.films().createFilms(TestData.newFilm("film"));
+        storages.journal().armed = true;
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.APPLIED), storages.films().applyLikes(List.of(
+                new LikeChange(film.getId(), first.getId(), false),
+                new LikeChange(film.getId(), second.getId(), false))));
+        storages.close();
+
+        storages = open(properties);
+        Assertions.assertEquals(Set.of(first.getId(), second.getId()),
+                storages.films().findFilmById(film.getId()).orElseThrow().getLikes());
+        storages.journal().armed = true;
+        Assertions.assertEquals(List.of(BatchStatus.APPLIED, BatchStatus.UNCHANGED), storages.users().applyFriendships(
+                List.of(new FriendshipChange(first.getId(), second.getId(), false),
+                        new FriendshipChange(second.getId(), first.getId(), false))));
+        storages.close();
+
+        storages = open(properties);
+        try {
+            Assertions.assertEquals(Set.of(second.getId()),
+                    storages.users().findUserById(first.getId()).orElseThrow().getFriends());
+        } finally {
+            storages.close();
+        }
+    }
+
+    @Test
+    public void binarySnapshotKeepsEveryField() throws Exception {
+        Film film = TestData.newFilm("Сталкер");
+        film.setId(7L);
+        film.setLikes(Set.of(3L, 1L, 2L));
+        Film emptyFilm = TestData.newFilm("description");
+        emptyFilm.setId(8L);
+        emptyFilm.setDuration(null);
+        User user = TestData.newUser("user");
+        user.setId(1L);
+        user.setFriends(Set.of(2L));
+        User unnamed = TestData.newUser("unnamed");
+        unnamed.setId(2L);
+        unnamed.setName(null);
+
+        Path path = directory.resolve("snapshot.bin");
+        BinarySnapshot.write(path, List.of(film, emptyFilm), List.of(user, unnamed),
+                (filmId, userId) -> userId == 2 ? 0 : filmId * 1000 + userId);
+        List<Film> films = new ArrayList<>();
+        List<long[]> likeTimes = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        BinarySnapshot.read(path, (restored, likedAt) -> {
+            films.add(restored);
+            likeTimes.add(likedAt);
+        }, users::add);
+
+        Assertions.assertEquals(List.of(film, emptyFilm), films);
+        Assertions.assertArrayEquals(new long[]{7001, 0, 7003}, likeTimes.get(0));
+        Assertions.assertEquals(0, likeTimes.get(1).length);
+        Assertions.assertEquals(List.of(user, unnamed), users);
+    }
+
+    /**
+     * Holds like records until the test makes them durable, or fails them.
+     */
+    private static class HeldJournal implements StorageJournal {
+        private final BlockingQueue<Runnable> held = new LinkedBlockingQueue<>();
+        private volatile boolean failing;
+
+        @Override
+        public <T> CompletableFuture<T> likeAdded(long filmId, long userId, long at, Supplier<T> apply) {
+            CompletableFuture<T> applied = new CompletableFuture<>();
+            held.add(() -> {
+                if (failing) {
+                    applied.completeExceptionally(new IllegalStateException("disk failed"));
+                } else {
+                    applied.complete(apply.get());
+                }
+            });
+            return applied;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Storages open(WalProperties properties) throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(properties, objectMapper);
+        SnapshotDuringBatch journal = new SnapshotDuringBatch(wal);
+        InMemoryFilmStorage films = new InMemoryFilmStorage(journal);
+        InMemoryUserStorage users = new InMemoryUserStorage(journal);
+        journal.snapshotManager = new SnapshotManager(wal, films, users, properties);
+        journal.snapshotManager.recover();
+        return new Storages(wal, journal, films, users);
+    }
+
+    private record Storages(WriteAheadLog wal, SnapshotDuringBatch journal, InMemoryFilmStorage films,
+                            InMemoryUserStorage users) {
+        private void close() throws Exception {
+            if (journal.snapshot != null) {
+                journal.snapshot.join();
+            }
+            journal.snapshotManager.shutdown();
+            wal.close();
+        }
+    }
+
+    /**
+     * Passes records on to the log, and once armed takes a snapshot right after the first
+     * record of the next batch, so the log rotates between two records of one batch. Records
+     * after that rotation are applied only once the snapshot is written.
+     */
+    private static class SnapshotDuringBatch implements StorageJournal {
+        private final WriteAheadLog wal;
+        private volatile SnapshotManager snapshotManager;
+        private volatile boolean armed;
+        private volatile Thread snapshot;
+
+        private SnapshotDuringBatch(WriteAheadLog wal) {
+            this.wal = wal;
+        }
+
+        @Override
+        public <T> CompletableFuture<T> filmSaved(Film film, boolean created, Supplier<T> apply) {
+            return wal.filmSaved(film, created, apply);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> likeAdded(long filmId, long userId, long at, Supplier<T> apply) {
+            CompletableFuture<T> appended = wal.likeAdded(filmId, userId, at, afterSnapshot(apply));
+            snapshotIfArmed();
+            return appended;
+        }
+
+        @Override
+        public <T> CompletableFuture<T> userSaved(User user, boolean created, Supplier<T> apply) {
+            return wal.userSaved(user, created, apply);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> friendAdded(long userId, long friendId, Supplier<T> apply) {
+            CompletableFuture<T> appended = wal.friendAdded(userId, friendId, afterSnapshot(apply));
+            snapshotIfArmed();
+            return appended;
+        }
+
+        private <T> Supplier<T> afterSnapshot(Supplier<T> apply) {
+            Thread running = snapshot;
+            if (running == null) {
+                return apply;
+            }
+            return () -> {
+                try {
+                    running.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return apply.get();
+            };
+        }
+
+        private void snapshotIfArmed() {
+            if (!armed) {
+                return;
+            }
+            armed = false;
+            Thread started = new Thread(snapshotManager::snapshot);
+            started.start();
+            // the snapshot waits for its rotation once the rotation is queued
+            while (started.getState() != Thread.State.WAITING && started.isAlive()) {
+                Thread.onSpinWait();
+            }
+            snapshot = started;
+        }
+    }
+}